@@ -0,0 +1,37 @@
+package com.chat.userservice.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tuning for the shared ObjectMapper behind MVC, /metrics, the JWKS body and the streaming
+ * dashboard. Blackbird replaces reflective getter/setter calls with generated lambdas; the two
+ * parser features turned off only matter for error messages and interning field names, which
+ * this service never needs.
+ */
+@Configuration
+public class JacksonConfig {
+
+    // Picked up by JacksonAutoConfiguration like any other Module bean
+    @Bean
+    @ConditionalOnProperty(name = "jackson.blackbird.enabled", havingValue = "true", matchIfMissing = true)
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer jacksonTuning() {
+        return builder -> builder.factory(JsonFactory.builder()
+            // Request bodies have a fixed key set; interning adds a lock-protected lookup per new name
+            .disable(JsonFactory.Feature.INTERN_FIELD_NAMES)
+            // Keeps parse errors from retaining (and echoing) the raw request body
+            .disable(StreamReadFeature.INCLUDE_SOURCE_IN_LOCATION)
+            .build());
+    }
+}
@@ -0,0 +1,96 @@
+package com.chat.userservice.config;
+
+import com.chat.userservice.metrics.QueryMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Wraps the DataSource in a datasource-proxy that reports every statement to
+ * {@link QueryMetrics}, and brackets each HTTP request so repeated SELECT shapes can be
+ * reported as N+1. Replaces spring.jpa.show-sql, which printed every statement to stdout.
+ */
+@Configuration
+@ConditionalOnProperty(name = "query-observability.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryObservabilityConfig {
+
+    @Bean
+    public static BeanPostProcessor queryObservabilityPostProcessor(ObjectProvider<QueryMetrics> queryMetrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(beanName, dataSource)
+                        .listener(new LazyListener(queryMetrics))
+                        .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> queryTrackingFilter(QueryMetrics queryMetrics) {
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                queryMetrics.beginRequest();
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    // Set by Spring MVC during dispatch; keeps the route tag to the mapping template
+                    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                    queryMetrics.endRequest(request.getMethod(), pattern != null ? pattern.toString() : "unmatched");
+                }
+            }
+        });
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    // The DataSource is created before the meter registry is ready, so resolve the listener on first use
+    private static final class LazyListener implements QueryExecutionListener {
+        private final ObjectProvider<QueryMetrics> provider;
+        private volatile QueryMetrics delegate;
+
+        LazyListener(ObjectProvider<QueryMetrics> provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            QueryMetrics metrics = delegate;
+            if (metrics == null) {
+                metrics = provider.getIfAvailable();
+                if (metrics == null) {
+                    return;
+                }
+                delegate = metrics;
+            }
+            metrics.afterQuery(execInfo, queryInfoList);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.chat.userservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    // Enables @Scheduled background work (metrics window rotation and similar housekeeping)
+    // Pool size comes from spring.task.scheduling.pool.size; the default single thread would serialize every job
+}
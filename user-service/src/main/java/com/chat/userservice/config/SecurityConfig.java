@@ -1,6 +1,7 @@
 package com.chat.userservice.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -23,9 +24,12 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 
     @Bean
@@ -34,11 +38,23 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/api/users/register", "/api/users/login").permitAll()
+                // POST only: a GET on these paths would resolve to the authenticated user lookup
+                .requestMatchers(HttpMethod.POST, "/api/users/register", "/api/users/login").permitAll()
                 // Allow load generator (and monitoring) to fetch dashboard and metrics without auth
                 .requestMatchers("/api/users/dashboard").permitAll()
                 .requestMatchers(HttpMethod.DELETE, "/api/users/*").permitAll()
+                // Validation endpoints answer valid/invalid themselves from the token they are given; the
+                // batch form carries the tokens in the body, so downstream services call it without a bearer header
+                .requestMatchers(HttpMethod.GET, "/api/users/validate").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/users/validate/batch").permitAll()
+                // Public verification keys for local JWT validation in other services
+                .requestMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
+                // Revocation deltas for the same local verifiers; jtis and usernames only
+                .requestMatchers(HttpMethod.GET, "/api/users/revocations").permitAll()
                 .requestMatchers("/health", "/metrics", "/prometheus").permitAll()
+                // Import accepts caller-supplied password hashes and delete removes accounts by prefix,
+                // so only configured admins may call them
+                .requestMatchers(HttpMethod.POST, "/api/users/bulk", "/api/users/bulk/delete").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
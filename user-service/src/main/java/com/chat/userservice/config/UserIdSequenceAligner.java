@@ -0,0 +1,50 @@
+package com.chat.userservice.config;
+
+import com.chat.userservice.entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Databases created while {@code users.id} was an IDENTITY column already hold ids that a
+ * freshly created {@code users_seq} would hand out again. At startup, before any insert,
+ * move the sequence past the current maximum id if it is behind.
+ */
+@Component
+public class UserIdSequenceAligner {
+    private static final Logger log = LoggerFactory.getLogger(UserIdSequenceAligner.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Injected so the schema (and the sequence) exists before this runs
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void align() {
+        try {
+            long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Long.class);
+            if (maxId == 0) {
+                return;
+            }
+            String nextValSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport()
+                .getSequenceNextValString(User.ID_SEQUENCE);
+            long next = jdbcTemplate.queryForObject(nextValSql, Long.class);
+            // The pooled optimizer treats a sequence value as the top of a block of ID_ALLOCATION_SIZE ids
+            if (next - (User.ID_ALLOCATION_SIZE - 1) <= maxId) {
+                long restart = maxId + User.ID_ALLOCATION_SIZE + 1;
+                jdbcTemplate.execute("ALTER SEQUENCE " + User.ID_SEQUENCE + " RESTART WITH " + restart);
+                log.info("Moved {} to {} (max users.id is {})", User.ID_SEQUENCE, restart, maxId);
+            }
+        } catch (Exception e) {
+            log.warn("Could not align {} with existing user ids: {}", User.ID_SEQUENCE, e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.chat.userservice.controller;
 
+import com.chat.userservice.logging.AccessLogRecord;
+import com.chat.userservice.logging.AccessLogWriter;
+import com.chat.userservice.metrics.DependencyProber;
 import com.chat.userservice.metrics.MetricsService;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
@@ -8,19 +11,19 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Configuration;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 import io.micrometer.prometheus.PrometheusMeterRegistry;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
@@ -37,18 +40,29 @@ public class HealthMetricsController {
     @Autowired
     private MeterRegistry meterRegistry;
 
+    @Autowired
+    private DependencyProber dependencyProber;
+
+    // Liveness/readiness target: always 200 so a database outage does not restart the pod;
+    // dependency state is reported from the background prober's cache
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
+        Map<String, Object> dependencies = new HashMap<>();
+        dependencyProber.results().forEach((name, result) -> dependencies.put(name, result.toMap()));
         Map<String, Object> out = new HashMap<>();
-        out.put("status", "OK");
+        out.put("status", dependencyProber.allUp() ? "OK" : "DEGRADED");
         out.put("service", serviceName);
+        out.put("dependencies", dependencies);
         out.put("timestamp", Instant.now().toString());
         return ResponseEntity.ok(out);
     }
 
+    // Pre-serialized snapshot shared by every poller until it expires (metrics.snapshot.max-age-ms)
     @GetMapping("/metrics")
-    public ResponseEntity<Map<String, Object>> metrics() {
-        return ResponseEntity.ok(metricsService.snapshot(serviceName));
+    public ResponseEntity<byte[]> metrics() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(metricsService.snapshotJson(serviceName));
     }
 
     @GetMapping("/prometheus")
@@ -65,30 +79,19 @@ public class HealthMetricsController {
     }
 }
 
+// Wraps the Spring Security chain so requests it rejects are still logged and metered
 @Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
 class RequestLoggingFilter extends OncePerRequestFilter {
-
-    @Value("${SERVICE_NAME:user-service}")
-    private String serviceName;
-
-    @Value("${LOG_DIR:./logs}")
-    private String logDir;
-
-    @Value("${SERVICE_VERSION:1.0.0}")
-    private String serviceVersion;
-
-    @Value("${GIT_COMMIT_SHA:unknown}")
-    private String gitCommitSha;
-
-    @Value("${INSTANCE_ID:${HOSTNAME:localhost}}")
-    private String instanceId;
-
-    @Value("${ENVIRONMENT:development}")
-    private String environment;
+    static final String UNMATCHED_ROUTE = "unmatched";
+    static final String SECURITY_REJECTED_ROUTE = "security-rejected";
 
     @Autowired
     private MetricsService metricsService;
 
+    @Autowired
+    private AccessLogWriter accessLogWriter;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -103,36 +106,23 @@ class RequestLoggingFilter extends OncePerRequestFilter {
             filterChain.doFilter(request, response);
         } finally {
             long durationMs = (System.nanoTime() - start) / 1_000_000;
-            String route = request.getMethod() + " " + request.getRequestURI();
-            metricsService.recordRequest(route, durationMs, response.getStatus());
-
-            // Enhanced JSON log with deployment metadata
-            Map<String, Object> log = new HashMap<>();
-            log.put("timestamp", Instant.now().toString());
-            log.put("service", serviceName);
-            log.put("level", "info");
-            log.put("traceId", traceId);
-            log.put("message", "request_completed");
-            log.put("method", request.getMethod());
-            log.put("path", request.getRequestURI());
-            log.put("status", response.getStatus());
-            log.put("durationMs", durationMs);
-            log.put("version", serviceVersion);
-            log.put("commit_sha", gitCommitSha);
-            log.put("instance_id", instanceId);
-            log.put("environment", environment);
-
-            File logDirFile = new File(logDir);
-            if (!logDirFile.exists() && !logDirFile.mkdirs()) {
-                System.err.println("Failed to create log directory: " + logDir);
-                return;
-            }
-            try (FileWriter fw = new FileWriter(logDir + "/app.log", StandardCharsets.UTF_8, true)) {
-                fw.write(new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsString(log));
-                fw.write("\n");
-            } catch (IOException e) {
-                System.err.println("Failed to write log: " + e.getMessage());
-            }
+            metricsService.recordRequest(request.getMethod(), routeTemplate(request, response.getStatus()), durationMs,
+                response.getStatus());
+
+            // JSON access log line is encoded and written off the request thread
+            accessLogWriter.append(new AccessLogRecord(System.currentTimeMillis(), traceId,
+                request.getMethod(), request.getRequestURI(), response.getStatus(), durationMs));
+        }
+    }
+
+    // Metrics are keyed by the matched handler pattern (/api/users/{username}), never the raw URI,
+    // so per-user paths share one series; 401/403s from Spring Security never reach a handler and
+    // share "security-rejected", anything else no handler matched (404s, 405s) shares "unmatched"
+    static String routeTemplate(HttpServletRequest request, int status) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            return pattern.toString();
         }
+        return status == 401 || status == 403 ? SECURITY_REJECTED_ROUTE : UNMATCHED_ROUTE;
     }
 }
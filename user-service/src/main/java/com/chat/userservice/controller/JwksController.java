@@ -0,0 +1,54 @@
+package com.chat.userservice.controller;
+
+import com.chat.userservice.util.JwtUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Publishes the JWT verification keys so downstream services can check tokens locally instead
+ * of calling /api/users/validate. The key set only changes on restart, so the body and its
+ * ETag are computed on first use and reused; Spring answers a matching If-None-Match with 304.
+ */
+@RestController
+public class JwksController {
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${jwt.jwks.max-age-seconds:300}")
+    private long maxAgeSeconds = 300;
+
+    private record Published(byte[] body, String etag) {
+    }
+
+    // Racing first requests build identical copies, so no lock is needed
+    private volatile Published published;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<byte[]> jwks() throws JsonProcessingException {
+        Published current = published;
+        if (current == null) {
+            byte[] body = objectMapper.writeValueAsBytes(Map.of("keys", jwtUtil.publicJwks()));
+            current = new Published(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+            published = current;
+        }
+        return ResponseEntity.ok()
+            .eTag(current.etag())
+            .cacheControl(CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(current.body());
+    }
+}
@@ -0,0 +1,65 @@
+package com.chat.userservice.controller;
+
+import com.chat.userservice.entity.TokenRevocation;
+import com.chat.userservice.service.TokenRevocationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Revocation deltas for services that verify tokens locally. Poll with the last returned
+ * {@code version} as {@code since} (0 for a full load) and keep paging while {@code hasMore}.
+ * A {@code user} or {@code prefix} entry revokes every token of the matching usernames whose
+ * iat is at or before {@code issuedBefore}. A {@code token} entry revokes the single jti
+ * {@code tokenId}. Entries may be dropped from the log once {@code expiresAt} has passed,
+ * because no token they match is still valid by then.
+ */
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = "http://localhost:3000")
+public class TokenRevocationController {
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Value("${jwt.revocation.deltas.max-limit:1000}")
+    private int maxLimit = 1000;
+
+    @GetMapping("/revocations")
+    public ResponseEntity<?> deltas(@RequestParam(defaultValue = "0") long since,
+                                    @RequestParam(required = false) Integer limit) {
+        if (since < 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "since must be >= 0"));
+        }
+        int pageSize = limit == null ? maxLimit : Math.max(1, Math.min(limit, maxLimit));
+        TokenRevocationService.Deltas deltas = tokenRevocationService.deltas(since, pageSize);
+
+        List<Map<String, Object>> revocations = new ArrayList<>(deltas.revocations().size());
+        for (TokenRevocation revocation : deltas.revocations()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("version", revocation.getId());
+            entry.put("kind", revocation.getKind().name().toLowerCase(Locale.ROOT));
+            entry.put(revocation.getKind() == TokenRevocation.Kind.PREFIX ? "prefix" : "username", revocation.getUsername());
+            if (revocation.getKind() == TokenRevocation.Kind.TOKEN) {
+                entry.put("tokenId", revocation.getTokenId());
+            } else {
+                entry.put("issuedBefore", revocation.getIssuedBefore());
+            }
+            entry.put("expiresAt", revocation.getExpiresAt());
+            revocations.add(entry);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("version", deltas.version());
+        response.put("hasMore", deltas.hasMore());
+        response.put("revocations", revocations);
+        return ResponseEntity.ok(response);
+    }
+}
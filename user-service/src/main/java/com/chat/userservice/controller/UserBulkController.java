@@ -0,0 +1,113 @@
+package com.chat.userservice.controller;
+
+import com.chat.userservice.dto.BulkDeleteRequest;
+import com.chat.userservice.dto.BulkImportRequest;
+import com.chat.userservice.dto.BulkImportUser;
+import com.chat.userservice.service.PasswordHashingRejectedException;
+import com.chat.userservice.service.UserBulkService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk user administration for loadgen seeding/cleanup and migration jobs. Callers need a token
+ * for one of the security.admin-usernames (see SecurityConfig).
+ */
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = "http://localhost:3000")
+public class UserBulkController {
+    @Autowired
+    private UserBulkService userBulkService;
+
+    @Value("${bulk-import.enabled:false}")
+    private boolean importEnabled;
+
+    @Value("${bulk-import.max-users-per-request:10000}")
+    private int maxUsersPerRequest = 10000;
+
+    @Value("${bulk-delete.enabled:false}")
+    private boolean deleteEnabled;
+
+    @Value("${bulk-delete.max-users-per-request:50000}")
+    private int maxDeletesPerRequest = 50000;
+
+    @Value("${bulk-delete.min-prefix-length:3}")
+    private int minPrefixLength = 3;
+
+    @PostMapping("/bulk")
+    public ResponseEntity<?> bulkImport(@Valid @RequestBody BulkImportRequest request) {
+        if (!importEnabled) {
+            return ResponseEntity.status(404).body(Map.of("error", "Bulk import is disabled"));
+        }
+        List<BulkImportUser> users = request.users();
+        if (users.size() > maxUsersPerRequest) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + maxUsersPerRequest + " users per request"));
+        }
+
+        List<UserBulkService.NewUser> newUsers = new ArrayList<>(users.size());
+        for (BulkImportUser user : users) {
+            newUsers.add(new UserBulkService.NewUser(user.username(), user.email(), user.password(), user.passwordHash()));
+        }
+
+        UserBulkService.ImportResult result;
+        try {
+            result = userBulkService.importUsers(newUsers);
+        } catch (PasswordHashingRejectedException e) {
+            return ResponseEntity.status(503)
+                .header("Retry-After", "1")
+                .body(Map.of("error", e.getMessage()));
+        }
+
+        List<Map<String, String>> rejected = new ArrayList<>(result.rejected().size());
+        result.rejected().forEach(rejection -> {
+            Map<String, String> entry = new HashMap<>();
+            entry.put("username", rejection.username());
+            entry.put("reason", rejection.reason());
+            rejected.add(entry);
+        });
+        Map<String, Object> response = new HashMap<>();
+        response.put("requested", result.requested());
+        response.put("created", result.created());
+        response.put("rejected", rejected);
+        response.put("durationMs", result.durationMs());
+        response.put("rowsPerSecond", result.rowsPerSecond());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<?> bulkDelete(@Valid @RequestBody BulkDeleteRequest request) {
+        if (!deleteEnabled) {
+            return ResponseEntity.status(404).body(Map.of("error", "Bulk delete is disabled"));
+        }
+
+        UserBulkService.DeleteResult result;
+        if (request.prefix() != null) {
+            if (request.prefix().length() < minPrefixLength) {
+                return ResponseEntity.badRequest().body(Map.of("error", "prefix must be at least " + minPrefixLength + " characters"));
+            }
+            result = userBulkService.deleteUsersByPrefix(request.prefix());
+        } else {
+            if (request.usernames().size() > maxDeletesPerRequest) {
+                return ResponseEntity.badRequest().body(Map.of("error", "At most " + maxDeletesPerRequest + " users per request"));
+            }
+            result = userBulkService.deleteUsers(request.usernames());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("requested", result.requested());
+        response.put("deleted", result.deleted());
+        response.put("notFound", result.requested() - result.deleted());
+        response.put("activeDeleted", result.active());
+        response.put("chunks", result.chunks());
+        response.put("durationMs", result.durationMs());
+        return ResponseEntity.ok(response);
+    }
+}
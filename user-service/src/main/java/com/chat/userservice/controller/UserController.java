@@ -1,16 +1,47 @@
 package com.chat.userservice.controller;
 
+import com.chat.userservice.dto.DashboardPageResponse;
+import com.chat.userservice.dto.DashboardResponse;
+import com.chat.userservice.dto.DeleteUserResponse;
+import com.chat.userservice.dto.ErrorResponse;
+import com.chat.userservice.dto.LoginRequest;
+import com.chat.userservice.dto.LoginResponse;
+import com.chat.userservice.dto.MessageResponse;
+import com.chat.userservice.dto.PasswordChangeRequest;
+import com.chat.userservice.dto.RegisterRequest;
+import com.chat.userservice.dto.RegisterResponse;
+import com.chat.userservice.dto.TokenBatchRequest;
+import com.chat.userservice.dto.TokenBatchResponse;
+import com.chat.userservice.dto.TokenValidationResponse;
 import com.chat.userservice.entity.User;
+import com.chat.userservice.repository.UserCredentials;
+import com.chat.userservice.repository.UserSummary;
+import com.chat.userservice.service.PasswordHashingRejectedException;
+import com.chat.userservice.service.TokenRevocationService;
+import com.chat.userservice.service.TokenValidationCache;
 import com.chat.userservice.service.UserService;
+import com.chat.userservice.service.UserTableVersion;
+import com.chat.userservice.util.JwtPrincipal;
 import com.chat.userservice.util.JwtUtil;
 import com.chat.userservice.metrics.MetricsService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/users")
@@ -25,109 +56,203 @@ public class UserController {
     @Autowired
     private MetricsService metricsService;
 
+    @Autowired
+    private TokenValidationCache tokenValidationCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private UserTableVersion userTableVersion;
+
+    @Value("${jwt.validate-batch.max-size:500}")
+    private int maxBatchSize = 500;
+
+    @Value("${dashboard.max-page-size:1000}")
+    private int maxDashboardPageSize = 1000;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody Map<String, String> request) {
+    public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
         try {
             User user = userService.registerUser(
-                request.get("username"),
-                request.get("email"),
-                request.get("password")
+                request.username(),
+                request.email(),
+                request.password()
             );
 
             // Track business metrics
             metricsService.recordUserRegistration();
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "User registered successfully");
-            response.put("userId", user.getId());
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new RegisterResponse("User registered successfully", user.getId()));
+        } catch (PasswordHashingRejectedException e) {
+            return hashingUnavailable(e);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
         }
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> request) {
-        Optional<User> user = userService.authenticateUser(
-            request.get("username"),
-            request.get("password")
-        );
+    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
+        Optional<UserCredentials> user;
+        try {
+            user = userService.authenticateUser(
+                request.username(),
+                request.password()
+            );
+        } catch (PasswordHashingRejectedException e) {
+            return hashingUnavailable(e);
+        }
 
         if (user.isPresent()) {
-            String token = jwtUtil.generateToken(user.get().getUsername());
-            userService.updateUserActivity(user.get().getUsername(), true);
+            String token = jwtUtil.generateToken(user.get().username(), user.get().id());
+            userService.updateUserActivity(user.get().username(), true);
 
             // Track business metrics
             metricsService.recordUserLogin();
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
-            response.put("username", user.get().getUsername());
-            response.put("userId", user.get().getId());
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new LoginResponse(token, user.get().username(), user.get().id()));
         }
 
-        return ResponseEntity.badRequest().body(Map.of("error", "Invalid credentials"));
+        return ResponseEntity.badRequest().body(new ErrorResponse("Invalid credentials"));
+    }
+
+    private static ResponseEntity<?> hashingUnavailable(PasswordHashingRejectedException e) {
+        return ResponseEntity.status(503)
+            .header("Retry-After", "1")
+            .body(new ErrorResponse(e.getMessage()));
     }
 
     @PostMapping("/logout")
     public ResponseEntity<?> logout(@RequestHeader("Authorization") String token) {
         try {
             String jwt = token.replace("Bearer ", "");
-            String username = jwtUtil.extractUsername(jwt);
-            userService.updateUserActivity(username, false);
-            return ResponseEntity.ok(Map.of("message", "Logged out successfully"));
+            JwtPrincipal principal = jwtUtil.parse(jwt).orElseThrow();
+            tokenRevocationService.revokeToken(principal);
+            userService.updateUserActivity(principal.username(), false);
+            return ResponseEntity.ok(new MessageResponse("Logged out successfully"));
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Invalid token"));
+            return ResponseEntity.badRequest().body(new ErrorResponse("Invalid token"));
         }
     }
 
+    /**
+     * Tags the response with the user-table version and answers a matching If-None-Match with 304.
+     * Must run before any query: a write that lands mid-request then only costs one extra full response.
+     */
+    private boolean notModified(WebRequest request) {
+        return userTableVersion.isEnabled() && request.checkNotModified(userTableVersion.etag());
+    }
+
+    // Pollers must revalidate every time; the 304 path costs no query
+    private static ResponseEntity.BodyBuilder revalidated() {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache());
+    }
+
     @GetMapping("/dashboard")
-    public ResponseEntity<?> getDashboard() {
-        List<User> users = userService.getAllUsers();
-        Map<String, Object> response = new HashMap<>();
-        response.put("totalUsers", userService.getTotalUsers());
-        response.put("activeUsers", userService.getActiveUsers());
-        response.put("users", users.stream().map(user -> {
-            Map<String, Object> userMap = new HashMap<>();
-            userMap.put("id", user.getId());
-            userMap.put("username", user.getUsername());
-            userMap.put("email", user.getEmail());
-            userMap.put("active", user.isActive());
-            userMap.put("lastSeen", user.getLastSeen());
-            return userMap;
-        }).toList());
-        return ResponseEntity.ok(response);
+    public ResponseEntity<?> getDashboard(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "0") long cursor,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        if (limit != null) {
+            int pageSize = Math.max(1, Math.min(limit, maxDashboardPageSize));
+            List<UserSummary> page = userService.getUserPage(cursor, pageSize);
+            return revalidated().body(new DashboardPageResponse(
+                userService.getTotalUsers(),
+                userService.getActiveUsers(),
+                page,
+                pageSize,
+                page.size() == pageSize ? page.get(page.size() - 1).id() : null
+            ));
+        }
+
+        List<UserSummary> users = userService.getAllUsers().stream()
+            .map(user -> new UserSummary(user.getId(), user.getUsername(), user.getEmail(), user.isActive(), user.getLastSeen()))
+            .toList();
+        return revalidated().body(new DashboardResponse(userService.getTotalUsers(), userService.getActiveUsers(), users));
+    }
+
+    // Same shape as the full dashboard, written in keyset chunks so heap use stays flat
+    @GetMapping(value = "/dashboard", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamDashboard(
+            @RequestParam(defaultValue = "0") long cursor,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        long totalUsers = userService.getTotalUsers();
+        long activeUsers = userService.getActiveUsers();
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.createGenerator(out, JsonEncoding.UTF8)) {
+                gen.writeStartObject();
+                gen.writeNumberField("totalUsers", totalUsers);
+                gen.writeNumberField("activeUsers", activeUsers);
+                gen.writeArrayFieldStart("users");
+                long after = cursor;
+                List<UserSummary> page;
+                do {
+                    page = userService.getUserPage(after, maxDashboardPageSize);
+                    for (UserSummary user : page) {
+                        gen.writeObject(user);
+                    }
+                    if (!page.isEmpty()) {
+                        after = page.get(page.size() - 1).id();
+                    }
+                    gen.flush();
+                } while (page.size() == maxDashboardPageSize);
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+        };
+        return revalidated().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @GetMapping("/{username}")
+    public ResponseEntity<?> getUser(@PathVariable String username, WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        return userService.getUserByUsername(username)
+            .<ResponseEntity<?>>map(user -> revalidated().body(
+                new UserSummary(user.getId(), user.getUsername(), user.getEmail(), user.isActive(), user.getLastSeen())))
+            .orElseGet(() -> ResponseEntity.status(404).body(new ErrorResponse("User not found")));
     }
 
     @PutMapping("/{username}/password")
     public ResponseEntity<?> updatePassword(
             @PathVariable String username,
-            @RequestBody Map<String, String> request,
+            @RequestBody PasswordChangeRequest request,
             @RequestHeader("Authorization") String token) {
         try {
             String jwt = token.replace("Bearer ", "");
-            String currentUser = jwtUtil.extractUsername(jwt);
+            String currentUser = jwtUtil.parse(jwt).orElseThrow().username();
 
             // Verify user can only change their own password
             if (!currentUser.equals(username)) {
-                return ResponseEntity.status(403).body(Map.of("error", "Can only change own password"));
+                return ResponseEntity.status(403).body(new ErrorResponse("Can only change own password"));
             }
 
-            String newPassword = request.get("newPassword");
+            String newPassword = request.newPassword();
             if (newPassword == null || newPassword.trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "New password is required"));
+                return ResponseEntity.badRequest().body(new ErrorResponse("New password is required"));
             }
 
             // Update password in user service
             boolean updated = userService.updatePassword(username, newPassword);
             if (updated) {
-                return ResponseEntity.ok(Map.of("message", "Password updated successfully"));
+                return ResponseEntity.ok(new MessageResponse("Password updated successfully"));
             } else {
-                return ResponseEntity.badRequest().body(Map.of("error", "Failed to update password"));
+                return ResponseEntity.badRequest().body(new ErrorResponse("Failed to update password"));
             }
+        } catch (PasswordHashingRejectedException e) {
+            return hashingUnavailable(e);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Invalid token or request"));
+            return ResponseEntity.badRequest().body(new ErrorResponse("Invalid token or request"));
         }
     }
 
@@ -135,22 +260,81 @@ public class UserController {
     public ResponseEntity<?> validateToken(@RequestHeader("Authorization") String token) {
         try {
             String jwt = token.replace("Bearer ", "");
-            if (jwtUtil.isTokenValid(jwt)) {
-                String username = jwtUtil.extractUsername(jwt);
-                Optional<User> userOpt = userService.getUserByUsername(username);
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    return ResponseEntity.ok(Map.of(
-                        "valid", true,
-                        "username", username,
-                        "userId", user.getId()
-                    ));
+            Optional<TokenValidationCache.Entry> cached = tokenValidationCache.get(jwt);
+            if (cached.isPresent()) {
+                // Revocations synced from other replicas do not invalidate this cache; the check is an in-memory lookup
+                if (tokenRevocationService.isRevoked(cached.get().principal())) {
+                    return ResponseEntity.ok(TokenValidationResponse.INVALID);
+                }
+                return ResponseEntity.ok(TokenValidationResponse.valid(cached.get().username(), cached.get().userId()));
+            }
+            Optional<JwtPrincipal> principal = jwtUtil.parse(jwt);
+            if (principal.isPresent()) {
+                String username = principal.get().username();
+                // Stamped before the revocation check, so a logout landing after the check still stales the put
+                long stamp = tokenValidationCache.stamp(username);
+                if (tokenRevocationService.isRevoked(principal.get())) {
+                    return ResponseEntity.ok(TokenValidationResponse.INVALID);
+                }
+                Optional<Long> userId = userService.getUserIdByUsername(username);
+                if (userId.isPresent()) {
+                    tokenValidationCache.put(jwt, principal.get(), userId.get(), stamp);
+                    return ResponseEntity.ok(TokenValidationResponse.valid(username, userId.get()));
                 }
             }
         } catch (Exception e) {
             // Token invalid
         }
-        return ResponseEntity.ok(Map.of("valid", false));
+        return ResponseEntity.ok(TokenValidationResponse.INVALID);
+    }
+
+    @PostMapping("/validate/batch")
+    public ResponseEntity<?> validateTokens(@RequestBody TokenBatchRequest request) {
+        List<String> tokens = request.tokens();
+        if (tokens == null) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("tokens is required"));
+        }
+        if (tokens.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("At most " + maxBatchSize + " tokens per request"));
+        }
+
+        List<TokenValidationResponse> results = new ArrayList<>(tokens.size());
+        Map<Integer, String> pendingTokens = new HashMap<>();
+        Map<Integer, JwtPrincipal> pendingPrincipals = new HashMap<>();
+        // Stamps are taken before the revocation checks, as in validateToken
+        Map<String, Long> stamps = new HashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            results.add(TokenValidationResponse.INVALID);
+            String jwt = tokens.get(i) == null ? null : tokens.get(i).replace("Bearer ", "");
+            Optional<TokenValidationCache.Entry> cached = tokenValidationCache.get(jwt);
+            if (cached.isPresent()) {
+                if (!tokenRevocationService.isRevoked(cached.get().principal())) {
+                    results.set(i, TokenValidationResponse.valid(cached.get().username(), cached.get().userId()));
+                }
+            } else {
+                Optional<JwtPrincipal> principal = jwtUtil.parse(jwt);
+                principal.ifPresent(p -> stamps.computeIfAbsent(p.username(), tokenValidationCache::stamp));
+                if (principal.isPresent() && !tokenRevocationService.isRevoked(principal.get())) {
+                    pendingPrincipals.put(i, principal.get());
+                    pendingTokens.put(i, jwt);
+                }
+            }
+        }
+
+        // Resolve all remaining usernames with a single query
+        Set<String> usernames = new HashSet<>();
+        pendingPrincipals.values().forEach(principal -> usernames.add(principal.username()));
+        Map<String, Long> userIds = userService.getUserIdsByUsernames(usernames);
+        pendingPrincipals.forEach((i, principal) -> {
+            String username = principal.username();
+            Long userId = userIds.get(username);
+            if (userId != null) {
+                tokenValidationCache.put(pendingTokens.get(i), principal, userId, stamps.get(username));
+                results.set(i, TokenValidationResponse.valid(username, userId));
+            }
+        });
+
+        return ResponseEntity.ok(new TokenBatchResponse(results));
     }
 
     @DeleteMapping("/{username}")
@@ -158,12 +342,12 @@ public class UserController {
         try {
             boolean deleted = userService.deleteUser(username);
             if (deleted) {
-                return ResponseEntity.ok(Map.of("deleted", true, "username", username));
+                return ResponseEntity.ok(new DeleteUserResponse(true, username));
             } else {
-                return ResponseEntity.status(404).body(Map.of("error", "User not found"));
+                return ResponseEntity.status(404).body(new ErrorResponse("User not found"));
             }
         } catch (Exception e) {
-            return ResponseEntity.status(500).body(Map.of("error", "Failed to delete user"));
+            return ResponseEntity.status(500).body(new ErrorResponse("Failed to delete user"));
         }
     }
 }
@@ -0,0 +1,15 @@
+package com.chat.userservice.dto;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotBlank;
+
+import java.util.List;
+
+/** Body of POST /api/users/bulk/delete: either {"usernames": [...]} or {"prefix": "loadtest_"}. */
+public record BulkDeleteRequest(List<@NotBlank String> usernames, String prefix) {
+
+    @AssertTrue(message = "Exactly one of usernames or prefix is required")
+    public boolean isSingleSelector() {
+        return (usernames == null) != (prefix == null);
+    }
+}
@@ -0,0 +1,10 @@
+package com.chat.userservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/** Body of POST /api/users/bulk. */
+public record BulkImportRequest(@NotNull List<@Valid @NotNull BulkImportUser> users) {
+}
@@ -0,0 +1,14 @@
+package com.chat.userservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+/** One entry of POST /api/users/bulk; supply either a raw password or an existing BCrypt hash. */
+public record BulkImportUser(
+        @NotBlank String username,
+        @NotBlank String email,
+        String password,
+        @Pattern(regexp = BulkImportUser.BCRYPT_HASH, message = "is not a BCrypt hash") String passwordHash) {
+
+    public static final String BCRYPT_HASH = "^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$";
+}
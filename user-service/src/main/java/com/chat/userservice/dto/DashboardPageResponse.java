@@ -0,0 +1,9 @@
+package com.chat.userservice.dto;
+
+import com.chat.userservice.repository.UserSummary;
+
+import java.util.List;
+
+/** One keyset page of the dashboard; {@code nextCursor} is null on the last page. */
+public record DashboardPageResponse(long totalUsers, long activeUsers, List<UserSummary> users, int limit, Long nextCursor) {
+}
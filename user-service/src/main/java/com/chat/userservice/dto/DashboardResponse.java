@@ -0,0 +1,9 @@
+package com.chat.userservice.dto;
+
+import com.chat.userservice.repository.UserSummary;
+
+import java.util.List;
+
+/** Unpaged dashboard: counts plus every user. */
+public record DashboardResponse(long totalUsers, long activeUsers, List<UserSummary> users) {
+}
@@ -0,0 +1,4 @@
+package com.chat.userservice.dto;
+
+public record DeleteUserResponse(boolean deleted, String username) {
+}
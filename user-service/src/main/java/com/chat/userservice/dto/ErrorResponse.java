@@ -0,0 +1,4 @@
+package com.chat.userservice.dto;
+
+public record ErrorResponse(String error) {
+}
@@ -0,0 +1,5 @@
+package com.chat.userservice.dto;
+
+/** Body of POST /api/users/login. */
+public record LoginRequest(String username, String password) {
+}
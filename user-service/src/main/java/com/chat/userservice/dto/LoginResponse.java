@@ -0,0 +1,4 @@
+package com.chat.userservice.dto;
+
+public record LoginResponse(String token, String username, Long userId) {
+}
@@ -0,0 +1,4 @@
+package com.chat.userservice.dto;
+
+public record MessageResponse(String message) {
+}
@@ -0,0 +1,5 @@
+package com.chat.userservice.dto;
+
+/** Body of PUT /api/users/{username}/password. */
+public record PasswordChangeRequest(String newPassword) {
+}
@@ -0,0 +1,5 @@
+package com.chat.userservice.dto;
+
+/** Body of POST /api/users/register. */
+public record RegisterRequest(String username, String email, String password) {
+}
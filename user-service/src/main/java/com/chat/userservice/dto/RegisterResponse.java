@@ -0,0 +1,4 @@
+package com.chat.userservice.dto;
+
+public record RegisterResponse(String message, Long userId) {
+}
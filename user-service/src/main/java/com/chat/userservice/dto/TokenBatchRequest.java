@@ -0,0 +1,7 @@
+package com.chat.userservice.dto;
+
+import java.util.List;
+
+/** Body of POST /api/users/validate/batch; entries may carry a "Bearer " prefix. */
+public record TokenBatchRequest(List<String> tokens) {
+}
@@ -0,0 +1,7 @@
+package com.chat.userservice.dto;
+
+import java.util.List;
+
+/** Results of POST /api/users/validate/batch, in request order. */
+public record TokenBatchResponse(List<TokenValidationResponse> results) {
+}
@@ -0,0 +1,13 @@
+package com.chat.userservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** Result of validating one token; an invalid result is just {@code {"valid":false}}. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TokenValidationResponse(boolean valid, String username, Long userId) {
+    public static final TokenValidationResponse INVALID = new TokenValidationResponse(false, null, null);
+
+    public static TokenValidationResponse valid(String username, Long userId) {
+        return new TokenValidationResponse(true, username, userId);
+    }
+}
@@ -0,0 +1,77 @@
+package com.chat.userservice.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * One persisted revocation. The identity id doubles as the version that downstream caches
+ * request deltas from. Rows are deleted once every token they could match has expired.
+ */
+@Entity
+@Table(name = "token_revocations", indexes = @Index(name = "idx_token_revocations_expires_at", columnList = "expires_at"))
+public class TokenRevocation {
+    public static final String TABLE = "token_revocations";
+
+    /** TOKEN revokes one token id; USER and PREFIX revoke every token issued up to issuedBefore. */
+    public enum Kind { TOKEN, USER, PREFIX }
+
+    // IDENTITY rather than a pooled sequence: ids must follow insert order across replicas
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Kind kind;
+
+    // The username, or the username prefix for PREFIX
+    @Column(nullable = false)
+    private String username;
+
+    @Column(name = "token_id", length = 64)
+    private String tokenId;
+
+    // Epoch seconds, inclusive, matched against the token's iat
+    @Column(name = "issued_before", nullable = false)
+    private long issuedBefore;
+
+    // Epoch seconds after which no matching token can still be valid
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    @Column(name = "created_at_ms", nullable = false)
+    private long createdAtMs;
+
+    // Constructors
+    public TokenRevocation() {}
+
+    public TokenRevocation(Kind kind, String username, String tokenId, long issuedBefore, long expiresAt, long createdAtMs) {
+        this.kind = kind;
+        this.username = username;
+        this.tokenId = tokenId;
+        this.issuedBefore = issuedBefore;
+        this.expiresAt = expiresAt;
+        this.createdAtMs = createdAtMs;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Kind getKind() { return kind; }
+    public void setKind(Kind kind) { this.kind = kind; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getTokenId() { return tokenId; }
+    public void setTokenId(String tokenId) { this.tokenId = tokenId; }
+
+    public long getIssuedBefore() { return issuedBefore; }
+    public void setIssuedBefore(long issuedBefore) { this.issuedBefore = issuedBefore; }
+
+    public long getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(long expiresAt) { this.expiresAt = expiresAt; }
+
+    public long getCreatedAtMs() { return createdAtMs; }
+    public void setCreatedAtMs(long createdAtMs) { this.createdAtMs = createdAtMs; }
+}
@@ -0,0 +1,8 @@
+package com.chat.userservice.logging;
+
+/**
+ * One completed request, captured on the request thread and encoded later by the writer thread.
+ */
+public record AccessLogRecord(long timestampMillis, String traceId, String method, String path,
+                              int status, long durationMs) {
+}
@@ -0,0 +1,355 @@
+package com.chat.userservice.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous JSON access log. Request threads enqueue {@link AccessLogRecord}s into a
+ * bounded lock-free ring buffer; a single writer thread encodes them in batches into a
+ * long-lived {@link FileChannel}, rotating the file by size and age. If the file cannot be
+ * written, the writer reopens it with exponential backoff; records lost in the failed batch
+ * and records that overflow the buffer meanwhile are counted as dropped.
+ */
+@Component
+public class AccessLogWriter {
+    private static final Logger log = LoggerFactory.getLogger(AccessLogWriter.class);
+
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    private static final String FILE_NAME = "app.log";
+    private static final long INITIAL_BACKOFF_MS = 100;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    private static final DateTimeFormatter ROTATED_SUFFIX =
+        DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    @Value("${SERVICE_NAME:user-service}")
+    private String serviceName = "user-service";
+
+    @Value("${LOG_DIR:./logs}")
+    private String logDir = "./logs";
+
+    @Value("${SERVICE_VERSION:1.0.0}")
+    private String serviceVersion = "1.0.0";
+
+    @Value("${GIT_COMMIT_SHA:unknown}")
+    private String gitCommitSha = "unknown";
+
+    @Value("${INSTANCE_ID:${HOSTNAME:localhost}}")
+    private String instanceId = "localhost";
+
+    @Value("${ENVIRONMENT:development}")
+    private String environment = "development";
+
+    @Value("${access-log.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${access-log.buffer-size:8192}")
+    private int bufferSize = 8192;
+
+    @Value("${access-log.batch-size:256}")
+    private int batchSize = 256;
+
+    @Value("${access-log.flush-interval-ms:50}")
+    private long flushIntervalMs = 50;
+
+    @Value("${access-log.max-file-size-mb:100}")
+    private long maxFileSizeMb = 100;
+
+    @Value("${access-log.rotate-interval-hours:24}")
+    private long rotateIntervalHours = 24;
+
+    @Value("${access-log.max-history:7}")
+    private int maxHistory = 7;
+
+    @Value("${access-log.overflow-policy:DROP}")
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    private final MeterRegistry meterRegistry;
+    private RingBuffer<AccessLogRecord> buffer;
+    private Counter writtenCounter;
+    private Counter droppedCounter;
+    private Thread writerThread;
+    private volatile boolean running;
+    // Set while the writer is backing off after an I/O failure; BLOCK then drops instead of waiting
+    private volatile boolean failing;
+
+    // Writer-thread state, reused across batches
+    private final StringBuilder line = new StringBuilder(512);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final ByteBuffer bytes = ByteBuffer.allocate(64 * 1024);
+    private String staticFields;
+    private FileChannel channel;
+    private long fileSize;
+    private long nextTimeRotation;
+    private int encodedInBatch;
+
+    public AccessLogWriter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        File logDirFile = new File(logDir);
+        if (!logDirFile.exists() && !logDirFile.mkdirs()) {
+            log.warn("Failed to create access log directory {}; access logging disabled", logDir);
+            enabled = false;
+            return;
+        }
+        buffer = new RingBuffer<>(bufferSize);
+        writtenCounter = Counter.builder("access_log_records_written_total")
+            .description("Access log records written to disk")
+            .register(meterRegistry);
+        droppedCounter = Counter.builder("access_log_records_dropped_total")
+            .description("Access log records dropped because the buffer was full or the file could not be written")
+            .register(meterRegistry);
+        Gauge.builder("access_log_queue_depth", buffer, RingBuffer::size)
+            .description("Access log records waiting to be written")
+            .register(meterRegistry);
+        staticFields = buildStaticFields();
+
+        running = true;
+        writerThread = new Thread(this::runWriter, "access-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /** Called on the request thread; never performs I/O. */
+    public void append(AccessLogRecord record) {
+        if (!running) {
+            return;
+        }
+        if (buffer.offer(record)) {
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            while (running && !failing) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                if (buffer.offer(record)) {
+                    return;
+                }
+            }
+        }
+        droppedCounter.increment();
+    }
+
+    public long droppedCount() {
+        return droppedCounter == null ? 0 : (long) droppedCounter.count();
+    }
+
+    public long writtenCount() {
+        return writtenCounter == null ? 0 : (long) writtenCounter.count();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        long backoffMs = INITIAL_BACKOFF_MS;
+        while (running || buffer.size() > 0) {
+            try {
+                if (channel == null) {
+                    openChannel();
+                    if (failing) {
+                        log.info("Access log writer recovered, writing to {}", Paths.get(logDir, FILE_NAME));
+                        failing = false;
+                        backoffMs = INITIAL_BACKOFF_MS;
+                    }
+                }
+                int drained = buffer.drain(this::encode, batchSize);
+                if (drained > 0) {
+                    writeBytes();
+                    writtenCounter.increment(drained);
+                    encodedInBatch = 0;
+                    rotateIfNeeded();
+                } else {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+                }
+            } catch (IOException | RuntimeException e) {
+                droppedCounter.increment(encodedInBatch);
+                encodedInBatch = 0;
+                bytes.clear();
+                encoder.reset();
+                closeChannel();
+                failing = true;
+                if (!running) {
+                    log.warn("Access log write failed during shutdown, dropping {} queued records: {}",
+                        buffer.size(), e.toString());
+                    droppedCounter.increment(buffer.drain(record -> { }, Integer.MAX_VALUE));
+                    return;
+                }
+                log.warn("Access log write failed, retrying in {} ms: {}", backoffMs, e.toString());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoffMs));
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+        }
+        closeChannel();
+    }
+
+    private void encode(AccessLogRecord record) {
+        encodedInBatch++;
+        line.setLength(0);
+        line.append("{\"timestamp\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(record.timestampMillis()), line);
+        line.append("\",\"level\":\"info\",\"message\":\"request_completed\",\"traceId\":");
+        appendJsonString(line, record.traceId());
+        line.append(",\"method\":");
+        appendJsonString(line, record.method());
+        line.append(",\"path\":");
+        appendJsonString(line, record.path());
+        line.append(",\"status\":").append(record.status());
+        line.append(",\"durationMs\":").append(record.durationMs());
+        line.append(staticFields).append("}\n");
+
+        CharBuffer chars = CharBuffer.wrap(line);
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, true);
+            if (!result.isOverflow()) {
+                break;
+            }
+            try {
+                writeBytes();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        encoder.reset();
+    }
+
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            fileSize += channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    private void rotateIfNeeded() throws IOException {
+        if (fileSize < maxFileSizeMb * 1024 * 1024 && System.currentTimeMillis() < nextTimeRotation) {
+            return;
+        }
+        closeChannel();
+        Path current = Paths.get(logDir, FILE_NAME);
+        Path rotated = Paths.get(logDir, FILE_NAME + "." + ROTATED_SUFFIX.format(Instant.now()));
+        for (int i = 1; Files.exists(rotated); i++) {
+            rotated = Paths.get(logDir, FILE_NAME + "." + ROTATED_SUFFIX.format(Instant.now()) + "-" + i);
+        }
+        Files.move(current, rotated);
+        pruneHistory();
+        openChannel();
+    }
+
+    private void pruneHistory() throws IOException {
+        File[] rotatedFiles = new File(logDir).listFiles((dir, name) -> name.startsWith(FILE_NAME + "."));
+        if (rotatedFiles == null || rotatedFiles.length <= maxHistory) {
+            return;
+        }
+        Arrays.sort(rotatedFiles, Comparator.comparingLong(File::lastModified).thenComparing(File::getName));
+        for (int i = 0; i < rotatedFiles.length - maxHistory; i++) {
+            Files.deleteIfExists(rotatedFiles[i].toPath());
+        }
+    }
+
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(Paths.get(logDir, FILE_NAME),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileSize = channel.size();
+        nextTimeRotation = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(rotateIntervalHours);
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            if (bytes.position() > 0) {
+                writeBytes();
+            }
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close access log: {}", e.getMessage());
+        }
+        channel = null;
+    }
+
+    private String buildStaticFields() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(",\"service\":");
+        appendJsonString(sb, serviceName);
+        sb.append(",\"version\":");
+        appendJsonString(sb, serviceVersion);
+        sb.append(",\"commit_sha\":");
+        appendJsonString(sb, gitCommitSha);
+        sb.append(",\"instance_id\":");
+        appendJsonString(sb, instanceId);
+        sb.append(",\"environment\":");
+        appendJsonString(sb, environment);
+        return sb.toString();
+    }
+
+    private static void appendJsonString(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
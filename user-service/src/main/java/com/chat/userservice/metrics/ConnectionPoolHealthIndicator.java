@@ -0,0 +1,39 @@
+package com.chat.userservice.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Actuator "dbPool" health from pool state alone; replaces the default "db" indicator, which
+ * borrowed a connection and ran a validation query on every probe. A saturated pool stays UP
+ * (saturated=true in the details) so readiness does not pull instances out under load; the
+ * pool is DOWN only when it holds no connections at all, i.e. it cannot reach the database.
+ */
+@Component
+public class ConnectionPoolHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private ConnectionPoolStats connectionPoolStats;
+
+    @Override
+    public Health health() {
+        Optional<ConnectionPoolStats.Snapshot> snapshot = connectionPoolStats.snapshot();
+        if (snapshot.isEmpty()) {
+            return Health.unknown().withDetail("reason", "connection pool not started").build();
+        }
+        ConnectionPoolStats.Snapshot pool = snapshot.get();
+        Health.Builder builder = pool.total() > 0 ? Health.up() : Health.down();
+        return builder
+            .withDetail("active", pool.active())
+            .withDetail("idle", pool.idle())
+            .withDetail("pending", pool.pending())
+            .withDetail("total", pool.total())
+            .withDetail("max", pool.max())
+            .withDetail("saturated", pool.saturated())
+            .build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.chat.userservice.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Reads HikariCP pool state through its MXBean. Nothing here borrows a connection, so health
+ * checks and /metrics scrapes cost a few volatile reads instead of competing with traffic.
+ */
+@Component
+public class ConnectionPoolStats {
+
+    public record Snapshot(int active, int idle, int pending, int total, int max) {
+        /** Every connection is busy and callers are queued for one. */
+        public boolean saturated() {
+            return pending > 0 && active >= max;
+        }
+
+        public double utilization() {
+            return max == 0 ? 0 : (double) active / max;
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    private volatile HikariDataSource hikari;
+
+    /** Empty when the DataSource is not Hikari or its pool has not started yet. */
+    public Optional<Snapshot> snapshot() {
+        HikariDataSource pool = hikari();
+        HikariPoolMXBean mxBean = pool != null ? pool.getHikariPoolMXBean() : null;
+        if (mxBean == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Snapshot(mxBean.getActiveConnections(), mxBean.getIdleConnections(),
+            mxBean.getThreadsAwaitingConnection(), mxBean.getTotalConnections(), pool.getMaximumPoolSize()));
+    }
+
+    private HikariDataSource hikari() {
+        HikariDataSource pool = hikari;
+        if (pool == null && dataSource != null) {
+            try {
+                // Unwrapped through the query-observability wrapper
+                if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                    pool = dataSource.unwrap(HikariDataSource.class);
+                    hikari = pool;
+                }
+            } catch (SQLException e) {
+                return null;
+            }
+        }
+        return pool;
+    }
+}
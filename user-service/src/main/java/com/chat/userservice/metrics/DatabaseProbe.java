@@ -0,0 +1,31 @@
+package com.chat.userservice.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/** Borrows one pooled connection and asks the driver to validate it. */
+@Component
+public class DatabaseProbe implements DependencyProbe {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Override
+    public String name() {
+        return "database";
+    }
+
+    @Override
+    public void check(Duration timeout) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isValid(Math.max(1, (int) timeout.toSeconds()))) {
+                throw new SQLException("Connection failed validation");
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.chat.userservice.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/** Actuator "dependencies" health from the {@link DependencyProber} cache; never probes inline. */
+@Component
+public class DependenciesHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private DependencyProber dependencyProber;
+
+    @Override
+    public Health health() {
+        Map<String, DependencyProber.Result> results = dependencyProber.results();
+        Health.Builder builder;
+        if (results.values().stream().anyMatch(result -> result.status() == DependencyProber.Status.DOWN)) {
+            builder = Health.down();
+        } else if (results.values().stream().anyMatch(result -> result.status() == DependencyProber.Status.UNKNOWN)) {
+            builder = Health.unknown();
+        } else {
+            builder = Health.up();
+        }
+        results.forEach((name, result) -> builder.withDetail(name, result.toMap()));
+        return builder.build();
+    }
+}
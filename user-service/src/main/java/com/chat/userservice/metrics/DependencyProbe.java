@@ -0,0 +1,15 @@
+package com.chat.userservice.metrics;
+
+import java.time.Duration;
+
+/**
+ * A downstream dependency checked in the background by {@link DependencyProber}. Implementations
+ * are Spring beans; returning normally means healthy, throwing means down.
+ */
+public interface DependencyProbe {
+
+    /** Key under "dependencies" in /metrics and /health, and the dependency tag on meters. */
+    String name();
+
+    void check(Duration timeout) throws Exception;
+}
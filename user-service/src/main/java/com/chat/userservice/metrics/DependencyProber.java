@@ -0,0 +1,181 @@
+package com.chat.userservice.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Checks every {@link DependencyProbe} on a fixed delay, each bounded by a timeout on its own
+ * thread, and keeps the last result. /metrics, /health and the actuator "dependencies"
+ * indicator read that cached result, so their latency no longer depends on PostgreSQL and
+ * scrapes cannot pile up behind a slow database. A probe that is still running when the next
+ * round starts is not started again.
+ */
+@Component
+public class DependencyProber {
+    private static final Logger log = LoggerFactory.getLogger(DependencyProber.class);
+
+    public enum Status { UP, DOWN, UNKNOWN }
+
+    public record Result(Status status, long checkedAtMs, long latencyMs, String error) {
+        public static final Result NOT_CHECKED = new Result(Status.UNKNOWN, 0, 0, null);
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("status", status.name().toLowerCase(Locale.ROOT));
+            out.put("checkedAtMs", checkedAtMs);
+            out.put("latencyMs", latencyMs);
+            if (error != null) {
+                out.put("error", error);
+            }
+            return out;
+        }
+    }
+
+    @Autowired(required = false)
+    private List<DependencyProbe> probes = List.of();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${dependency-probe.timeout-ms:2000}")
+    private long timeoutMs = 2000;
+
+    @Value("${dependency-probe.interval-ms:5000}")
+    private long intervalMs = 5000;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "dependency-probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Future<?>> inFlight = new LinkedHashMap<>();
+    private volatile Map<String, Result> results = Map.of();
+
+    @PostConstruct
+    public void init() {
+        Map<String, Result> initial = new LinkedHashMap<>();
+        for (DependencyProbe probe : probes) {
+            initial.put(probe.name(), Result.NOT_CHECKED);
+            Gauge.builder("dependency_up", this, prober -> prober.result(probe.name()).status() == Status.UP ? 1 : 0)
+                .description("1 when the last background probe of the dependency succeeded")
+                .tag("dependency", probe.name())
+                .register(meterRegistry);
+        }
+        results = Collections.unmodifiableMap(initial);
+        // First round before traffic, so /metrics never reports "unknown" for a healthy dependency
+        probeAll();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${dependency-probe.interval-ms:5000}",
+               initialDelayString = "${dependency-probe.interval-ms:5000}")
+    public synchronized void probeAll() {
+        Map<String, Result> next = new LinkedHashMap<>(results);
+        Map<String, Future<Result>> started = new LinkedHashMap<>();
+        for (DependencyProbe probe : probes) {
+            Future<?> previous = inFlight.get(probe.name());
+            if (previous != null && !previous.isDone()) {
+                next.put(probe.name(), new Result(Status.DOWN, System.currentTimeMillis(), timeoutMs,
+                    "previous probe still running"));
+                continue;
+            }
+            Future<Result> future = executor.submit(() -> run(probe));
+            inFlight.put(probe.name(), future);
+            started.put(probe.name(), future);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        started.forEach((name, future) -> {
+            Result result = await(future, deadline);
+            Status previous = results.getOrDefault(name, Result.NOT_CHECKED).status();
+            if (result.status() == Status.DOWN && previous != Status.DOWN) {
+                log.warn("Dependency {} is down: {}", name, result.error());
+            } else if (result.status() == Status.UP && previous == Status.DOWN) {
+                log.info("Dependency {} recovered", name);
+            }
+            next.put(name, result);
+        });
+        results = Collections.unmodifiableMap(next);
+    }
+
+    /** Last result for one dependency; UNKNOWN if it has not been probed or is stale. */
+    public Result result(String name) {
+        Result result = results.getOrDefault(name, Result.NOT_CHECKED);
+        // A prober that stopped running must not keep reporting its last success forever
+        if (result.checkedAtMs() > 0 && System.currentTimeMillis() - result.checkedAtMs() > 3 * intervalMs + timeoutMs) {
+            return new Result(Status.UNKNOWN, result.checkedAtMs(), result.latencyMs(), "stale");
+        }
+        return result;
+    }
+
+    public Map<String, Result> results() {
+        Map<String, Result> out = new LinkedHashMap<>();
+        results.keySet().forEach(name -> out.put(name, result(name)));
+        return out;
+    }
+
+    public boolean allUp() {
+        return results.keySet().stream().allMatch(name -> result(name).status() == Status.UP);
+    }
+
+    private Result run(DependencyProbe probe) {
+        long started = System.nanoTime();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            probe.check(Duration.ofMillis(timeoutMs));
+            return new Result(Status.UP, System.currentTimeMillis(), elapsedMs(started), null);
+        } catch (Exception e) {
+            return new Result(Status.DOWN, System.currentTimeMillis(), elapsedMs(started),
+                e.getClass().getSimpleName() + ": " + e.getMessage());
+        } finally {
+            sample.stop(Timer.builder("dependency_probe_duration_seconds")
+                .description("Background dependency probe latency")
+                .tag("dependency", probe.name())
+                .register(meterRegistry));
+        }
+    }
+
+    private Result await(Future<Result> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Left running; the next round skips it until it finishes
+            return new Result(Status.DOWN, System.currentTimeMillis(), timeoutMs, "timed out after " + timeoutMs + "ms");
+        } catch (ExecutionException e) {
+            return new Result(Status.DOWN, System.currentTimeMillis(), 0, String.valueOf(e.getCause()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(Status.DOWN, System.currentTimeMillis(), 0, "interrupted");
+        }
+    }
+
+    private static long elapsedMs(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+}
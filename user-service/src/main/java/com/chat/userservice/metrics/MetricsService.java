@@ -1,37 +1,71 @@
 package com.chat.userservice.metrics;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import jakarta.annotation.PostConstruct;
-import javax.sql.DataSource;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.management.OperatingSystemMXBean;
-import java.sql.Connection;
-import java.sql.Statement;
 import java.time.Instant;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component
 public class MetricsService {
     private final long startTime = System.currentTimeMillis();
-    private long requestsTotal = 0;
-    private long errorsTotal = 0;
-    private long usersRegistered = 0;
-    private final Map<String, Long> requestsByRoute = new HashMap<>();
-    private final Deque<Long> latenciesMs = new ArrayDeque<>();
+    private static final long LATENCY_SLOT_MS = 10_000;
+    private static final Map<String, Long> LATENCY_WINDOWS = windows();
+    private static final Logger log = LoggerFactory.getLogger(MetricsService.class);
+    public static final String OVERFLOW_ROUTE = "overflow";
+    private static final Set<String> KNOWN_METHODS = Set.of("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE");
+
+    private final LongAdder requestsTotal = new LongAdder();
+    private final LongAdder errorsTotal = new LongAdder();
+    // method -> path -> pre-registered meters; two levels so lookups on the hot path allocate nothing
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, RouteMeters>> routeMeters = new ConcurrentHashMap<>();
+    private final RollingLatencyHistogram latency = newLatencyHistogram();
+    private final AtomicInteger routeCount = new AtomicInteger();
+    private volatile boolean overflowWarned;
+
+    @Value("${metrics.routes.max-routes:200}")
+    private int maxRoutes = 200;
+    private static final OperatingSystemMXBean OS = ManagementFactory.getOperatingSystemMXBean();
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    private static final ObjectMapper FALLBACK_MAPPER = new ObjectMapper();
+
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    @Value("${metrics.snapshot.max-age-ms:1000}")
+    private long snapshotMaxAgeMs = 1000;
+
+    @Autowired(required = false)
+    private ObjectMapper objectMapper;
 
     @Autowired
-    private DataSource dataSource;
+    private ConnectionPoolStats connectionPoolStats;
+
+    @Autowired
+    private DependencyProber dependencyProber;
 
     // Deployment metadata
     @Value("${SERVICE_VERSION:1.0.0}")
@@ -46,10 +80,7 @@ public class MetricsService {
     @Value("${ENVIRONMENT:development}")
     private String environment;
 
-    // Prometheus metrics with deployment labels
-    private Counter httpRequestsTotal;
-    private Timer httpRequestDuration;
-    private Counter serviceErrorsTotal;
+    // Business counters with deployment labels; request meters are per route (RouteMeters)
     private Counter businessUserRegistrationsTotal;
     private Counter businessUserLoginsTotal;
 
@@ -70,22 +101,6 @@ public class MetricsService {
             "environment", environment != null ? environment : "development"
         );
 
-        this.httpRequestsTotal = Counter.builder("http_requests_total")
-                .description("Total number of HTTP requests")
-                .tags(deploymentTags)
-                .register(meterRegistry);
-
-        this.httpRequestDuration = Timer.builder("http_request_duration_seconds")
-                .description("HTTP request duration in seconds")
-                .publishPercentileHistogram()
-                .tags(deploymentTags)
-                .register(meterRegistry);
-
-        this.serviceErrorsTotal = Counter.builder("service_errors_total")
-                .description("Total number of service errors")
-                .tags(deploymentTags)
-                .register(meterRegistry);
-
         this.businessUserRegistrationsTotal = Counter.builder("business_user_registrations_total")
                 .description("Total number of user registrations")
                 .tags(deploymentTags)
@@ -97,106 +112,182 @@ public class MetricsService {
                 .register(meterRegistry);
     }
 
-    public synchronized void recordRequest(String route, long durationMs, int status) {
-        requestsTotal++;
-        requestsByRoute.merge(route, 1L, Long::sum);
-        latenciesMs.addLast(durationMs);
-        if (latenciesMs.size() > 500) latenciesMs.removeFirst();
-        if (status >= 500) errorsTotal++;
-
-        // Extract method and path from route (e.g., "GET /api/users" -> method="GET", route="/api/users")
-        String[] parts = route.split(" ", 2);
-        String method = parts.length > 0 ? parts[0] : "UNKNOWN";
-        String path = parts.length > 1 ? parts[1] : route;
-
-        // Update Prometheus metrics with method and route labels
-        Counter.builder("http_requests_total")
-            .description("Total number of HTTP requests")
-            .tags(Tags.concat(deploymentTags, Tags.of("method", method, "route", path)))
-            .register(meterRegistry)
-            .increment();
-
-        Timer.builder("http_request_duration_seconds")
-            .description("HTTP request duration in seconds")
-            .publishPercentileHistogram()
-            .tags(Tags.concat(deploymentTags, Tags.of("method", method, "route", path)))
-            .register(meterRegistry)
-            .record(durationMs, java.util.concurrent.TimeUnit.MILLISECONDS);
-
+    /**
+     * Records one request under {@code path}, which must be a route template (the matched
+     * handler pattern), never a raw URI. Past metrics.routes.max-routes distinct routes, new
+     * ones are folded into the "overflow" route so meters and heap stay bounded regardless.
+     */
+    public void recordRequest(String method, String path, long durationMs, int status) {
+        requestsTotal.increment();
+        latency.record(durationMs);
+        if (status >= 500) errorsTotal.increment();
+
+        RouteMeters meters = routeMeters(method, path);
+        meters.requests.increment();
+        meters.requestCounter.increment();
+        meters.durationTimer.record(durationMs, TimeUnit.MILLISECONDS);
+        meters.latency.record(durationMs);
         if (status >= 400) {
-            Counter.builder("service_errors_total")
-                .description("Total number of service errors")
-                .tags(Tags.concat(deploymentTags, Tags.of("method", method, "route", path)))
-                .register(meterRegistry)
-                .increment();
+            meters.errorCounter().increment();
+        }
+    }
+
+    private RouteMeters routeMeters(String rawMethod, String path) {
+        // The method is client-controlled too; unknown verbs share one bucket
+        String method = KNOWN_METHODS.contains(rawMethod) ? rawMethod : "OTHER";
+        ConcurrentHashMap<String, RouteMeters> byPath = routeMeters.get(method);
+        if (byPath == null) {
+            byPath = routeMeters.computeIfAbsent(method, m -> new ConcurrentHashMap<>());
+        }
+        RouteMeters meters = byPath.get(path);
+        if (meters == null) {
+            meters = byPath.computeIfAbsent(path, p -> {
+                if (routeCount.incrementAndGet() > maxRoutes) {
+                    routeCount.decrementAndGet();
+                    return null;
+                }
+                return new RouteMeters(method, p);
+            });
+        }
+        if (meters == null) {
+            if (!overflowWarned) {
+                overflowWarned = true;
+                log.warn("More than {} distinct routes; further routes are recorded as \"{}\"", maxRoutes, OVERFLOW_ROUTE);
+            }
+            meters = byPath.computeIfAbsent(OVERFLOW_ROUTE, p -> new RouteMeters(method, p));
         }
+        return meters;
+    }
+
+    /** Distinct (method, route) pairs with their own meters, including overflow buckets. */
+    int routeCount() {
+        return routeMeters.values().stream().mapToInt(Map::size).sum();
     }
 
-    public synchronized void recordUserRegistration() {
-        usersRegistered++;
+    @Scheduled(fixedRate = LATENCY_SLOT_MS / 2)
+    public void rollLatencyWindows() {
+        long now = System.currentTimeMillis();
+        latency.roll(now);
+        routeMeters.values().forEach(byPath -> byPath.values().forEach(meters -> meters.latency.roll(now)));
+    }
+
+    public void recordUserRegistration() {
         businessUserRegistrationsTotal.increment();
     }
 
-    public synchronized void recordUserLogin() {
+    public void recordUserLogin() {
         businessUserLoginsTotal.increment();
     }
 
-    public synchronized void recordError(String errorType) {
-        errorsTotal++;
-        serviceErrorsTotal.increment();
+    public void recordError(String errorType) {
+        errorsTotal.increment();
     }
 
-    public synchronized Map<String, Object> snapshot(String serviceName) {
-        var arr = latenciesMs.stream().sorted().toList();
-        long count = arr.size();
-        long min = count > 0 ? arr.get(0) : 0;
-        long max = count > 0 ? arr.get((int)count-1) : 0;
-        long sum = arr.stream().mapToLong(Long::longValue).sum();
-        long p50 = count > 0 ? arr.get(Math.min((int)count-1, Math.max(0, (int)Math.floor(count*0.5)))) : 0;
-        long p95 = count > 0 ? arr.get(Math.min((int)count-1, Math.max(0, (int)Math.floor(count*0.95)))) : 0;
-        long p99 = count > 0 ? arr.get(Math.min((int)count-1, Math.max(0, (int)Math.floor(count*0.99)))) : 0;
+    /**
+     * The /metrics body, rebuilt at most once per metrics.snapshot.max-age-ms and shared by all
+     * readers. One reader rebuilds while the others keep getting the previous snapshot, so
+     * frequent dashboard polling never queues behind the rebuild or touches request threads.
+     */
+    public Map<String, Object> snapshot(String serviceName) {
+        return currentSnapshot(serviceName).body();
+    }
 
-        // System metrics
-        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
-        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    /** {@link #snapshot} serialized to JSON once per rebuild. */
+    public byte[] snapshotJson(String serviceName) {
+        return currentSnapshot(serviceName).json();
+    }
 
-        // Database status
-        String dbStatus = "connected";
-        try (Connection conn = dataSource.getConnection();
-             Statement stmt = conn.createStatement()) {
-            stmt.execute("SELECT 1");
-        } catch (Exception e) {
-            dbStatus = "disconnected";
+    private Snapshot currentSnapshot(String serviceName) {
+        Snapshot current = snapshot;
+        if (isFresh(current, serviceName)) {
+            return current;
         }
+        if (current != null && current.serviceName().equals(serviceName)) {
+            if (!snapshotLock.tryLock()) {
+                return current;
+            }
+        } else {
+            snapshotLock.lock();
+        }
+        try {
+            // Another reader may have rebuilt while this one was acquiring the lock
+            Snapshot latest = snapshot;
+            if (isFresh(latest, serviceName)) {
+                return latest;
+            }
+            long now = System.currentTimeMillis();
+            latest = new Snapshot(serviceName, now, immutable(buildSnapshot(serviceName, now)));
+            snapshot = latest;
+            return latest;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private boolean isFresh(Snapshot candidate, String serviceName) {
+        return candidate != null && candidate.serviceName().equals(serviceName)
+            && System.currentTimeMillis() - candidate.builtAtMs() < snapshotMaxAgeMs;
+    }
+
+    private Map<String, Object> buildSnapshot(String serviceName, long now) {
+        Map<String, Long> requestsByRoute = new HashMap<>();
+        Map<String, Object> latencyByRoute = new HashMap<>();
+        routeMeters.values().forEach(byPath -> byPath.values().forEach(meters -> {
+            requestsByRoute.put(meters.route, meters.requests.sum());
+            latencyByRoute.put(meters.route, latencyWindows(meters.latency, now));
+        }));
+        long requests = requestsTotal.sum();
+        long errors = errorsTotal.sum();
+
+        // Dependency state comes from the background prober and the pool MXBean; a scrape does no I/O
+        Optional<ConnectionPoolStats.Snapshot> pool = connectionPoolStats != null
+            ? connectionPoolStats.snapshot() : Optional.empty();
+        DependencyProber.Result dbProbe = dependencyProber != null
+            ? dependencyProber.result("database") : DependencyProber.Result.NOT_CHECKED;
+        String dbStatus = switch (dbProbe.status()) {
+            case UP -> "connected";
+            case DOWN -> "disconnected";
+            case UNKNOWN -> "unknown";
+        };
 
         Map<String, Object> out = new HashMap<>();
         out.put("service", serviceName);
         out.put("status", dbStatus.equals("connected") ? "healthy" : "degraded");
-        out.put("uptimeMs", System.currentTimeMillis() - startTime);
-        out.put("requestsTotal", requestsTotal);
-        out.put("requestsByRoute", new HashMap<>(requestsByRoute));
-        out.put("errorsTotal", errorsTotal);
-        out.put("errorRate", requestsTotal > 0 ? Math.round((double)errorsTotal / requestsTotal * 100 * 100.0) / 100.0 : 0);
-
-        Map<String, Object> latency = new HashMap<>();
-        latency.put("count", count);
-        latency.put("min", min);
-        latency.put("p50", p50);
-        latency.put("p95", p95);
-        latency.put("p99", p99);
-        latency.put("max", max);
-        latency.put("avg", count > 0 ? Math.round((double)sum / count * 100.0) / 100.0 : 0);
-        out.put("latency", latency);
+        out.put("uptimeMs", now - startTime);
+        out.put("requestsTotal", requests);
+        out.put("requestsByRoute", requestsByRoute);
+        out.put("errorsTotal", errors);
+        out.put("errorRate", requests > 0 ? Math.round((double)errors / requests * 100 * 100.0) / 100.0 : 0);
+
+        // Top-level latency covers the last minute; per-window and per-route breakdowns follow
+        Map<String, Object> windows = latencyWindows(latency, now);
+        out.put("latency", windows.get("1m"));
+        out.put("latencyWindows", windows);
+        out.put("latencyByRoute", latencyByRoute);
 
         Map<String, Object> resources = new HashMap<>();
-        resources.put("memoryMB", Math.round(memoryBean.getHeapMemoryUsage().getUsed() / 1024.0 / 1024.0 * 100.0) / 100.0);
-        resources.put("availableProcessors", osBean.getAvailableProcessors());
+        resources.put("memoryMB", Math.round(MEMORY.getHeapMemoryUsage().getUsed() / 1024.0 / 1024.0 * 100.0) / 100.0);
+        resources.put("availableProcessors", OS.getAvailableProcessors());
         out.put("resources", resources);
 
         Map<String, Object> dependencies = new HashMap<>();
         Map<String, Object> database = new HashMap<>();
         database.put("status", dbStatus);
         database.put("type", "PostgreSQL");
+        database.put("checkedAtMs", dbProbe.checkedAtMs());
+        database.put("latencyMs", dbProbe.latencyMs());
+        if (dbProbe.error() != null) {
+            database.put("error", dbProbe.error());
+        }
+        pool.ifPresent(p -> {
+            Map<String, Object> poolStats = new HashMap<>();
+            poolStats.put("active", p.active());
+            poolStats.put("idle", p.idle());
+            poolStats.put("pending", p.pending());
+            poolStats.put("max", p.max());
+            poolStats.put("saturated", p.saturated());
+            database.put("pool", poolStats);
+        });
         dependencies.put("database", database);
         out.put("dependencies", dependencies);
 
@@ -214,7 +305,121 @@ public class MetricsService {
         deployment.put("environment", environment);
         out.put("deployment", deployment);
 
-        out.put("timestamp", Instant.now().toString());
+        out.put("timestamp", Instant.ofEpochMilli(now).toString());
         return out;
     }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> immutable(Map<String, ?> map) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        map.forEach((key, value) -> copy.put(key, value instanceof Map<?, ?> nested
+            ? immutable((Map<String, ?>) nested) : value));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /** One built /metrics body; the JSON form is produced on first request and then reused. */
+    private final class Snapshot {
+        private final String serviceName;
+        private final long builtAtMs;
+        private final Map<String, Object> body;
+        private volatile byte[] json;
+
+        Snapshot(String serviceName, long builtAtMs, Map<String, Object> body) {
+            this.serviceName = serviceName;
+            this.builtAtMs = builtAtMs;
+            this.body = body;
+        }
+
+        String serviceName() {
+            return serviceName;
+        }
+
+        long builtAtMs() {
+            return builtAtMs;
+        }
+
+        Map<String, Object> body() {
+            return body;
+        }
+
+        byte[] json() {
+            byte[] bytes = json;
+            if (bytes == null) {
+                try {
+                    bytes = objectMapper().writeValueAsBytes(body);
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException("Could not serialize metrics snapshot", e);
+                }
+                json = bytes;
+            }
+            return bytes;
+        }
+    }
+
+    private ObjectMapper objectMapper() {
+        return objectMapper != null ? objectMapper : FALLBACK_MAPPER;
+    }
+
+    private static Map<String, Object> latencyWindows(RollingLatencyHistogram histogram, long now) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        LATENCY_WINDOWS.forEach((name, windowMs) ->
+            out.put(name, RollingLatencyHistogram.summarize(histogram.window(windowMs, now))));
+        return out;
+    }
+
+    private static Map<String, Long> windows() {
+        Map<String, Long> windows = new LinkedHashMap<>();
+        windows.put("1m", TimeUnit.MINUTES.toMillis(1));
+        windows.put("5m", TimeUnit.MINUTES.toMillis(5));
+        windows.put("15m", TimeUnit.MINUTES.toMillis(15));
+        return windows;
+    }
+
+    private static RollingLatencyHistogram newLatencyHistogram() {
+        return new RollingLatencyHistogram(LATENCY_SLOT_MS, TimeUnit.MINUTES.toMillis(15), System.currentTimeMillis());
+    }
+
+    /** Meters for one (method, path) pair, registered once and reused for every request. */
+    private final class RouteMeters {
+        private final String method;
+        private final String path;
+        private final String route;
+        private final LongAdder requests = new LongAdder();
+        private final RollingLatencyHistogram latency = newLatencyHistogram();
+        private final Counter requestCounter;
+        private final Timer durationTimer;
+        private volatile Counter errorCounter;
+
+        RouteMeters(String method, String path) {
+            this.method = method;
+            this.path = path;
+            this.route = method + " " + path;
+            this.requestCounter = Counter.builder("http_requests_total")
+                .description("Total number of HTTP requests")
+                .tags(routeTags())
+                .register(meterRegistry);
+            this.durationTimer = Timer.builder("http_request_duration_seconds")
+                .description("HTTP request duration in seconds")
+                .publishPercentileHistogram()
+                .tags(routeTags())
+                .register(meterRegistry);
+        }
+
+        // Registered on first error so routes that never fail do not export an error series
+        Counter errorCounter() {
+            Counter counter = errorCounter;
+            if (counter == null) {
+                counter = Counter.builder("service_errors_total")
+                    .description("Total number of service errors")
+                    .tags(routeTags())
+                    .register(meterRegistry);
+                errorCounter = counter;
+            }
+            return counter;
+        }
+
+        private Tags routeTags() {
+            return Tags.concat(deploymentTags, Tags.of("method", method, "route", path));
+        }
+    }
 }
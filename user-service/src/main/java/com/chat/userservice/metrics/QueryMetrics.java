@@ -0,0 +1,198 @@
+package com.chat.userservice.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JDBC-level query observability, fed by the datasource-proxy wrapped around the pool.
+ * Every statement is timed into db_query_duration_seconds under its query shape (the SQL
+ * with literals and IN-lists collapsed). Only statements slower than the threshold, or a
+ * sampled fraction of the rest, are logged, on the {@code com.chat.userservice.sql} logger.
+ * Within an HTTP request the same SELECT shape running n-plus-one-threshold times or more is
+ * reported as a likely N+1.
+ */
+@Component
+public class QueryMetrics implements QueryExecutionListener {
+    private static final Logger sqlLog = LoggerFactory.getLogger("com.chat.userservice.sql");
+
+    static final String OVERFLOW_SHAPE = "other";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern TABLE = Pattern.compile("(?i)\\b(?:from|into|update)\\s+([\\w.\"]+)");
+    // Raw SQL strings differ by IN-list length, so the normalisation cache is bounded separately
+    private static final int MAX_CACHED_SQL = 2048;
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, Shape> shapesBySql = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Shape> shapes = new ConcurrentHashMap<>();
+    private final ThreadLocal<Map<Shape, int[]>> requestQueries = new ThreadLocal<>();
+    private final Shape overflow;
+
+    @Value("${query-observability.slow-query-threshold-ms:200}")
+    private long slowQueryThresholdMs = 200;
+
+    @Value("${query-observability.sample-rate:0.0}")
+    private double sampleRate = 0.0;
+
+    @Value("${query-observability.max-shapes:500}")
+    private int maxShapes = 500;
+
+    @Value("${query-observability.n-plus-one-threshold:10}")
+    private int nPlusOneThreshold = 10;
+
+    public QueryMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.overflow = new Shape(OVERFLOW_SHAPE, OVERFLOW_SHAPE, "other", "other");
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty()) {
+            return;
+        }
+        // A JDBC batch is one round trip; attribute it to the shape of its first statement
+        Shape shape = shapeOf(queryInfoList.get(0).getQuery());
+        long elapsedMs = execInfo.getElapsedTime();
+        shape.timer.record(elapsedMs, TimeUnit.MILLISECONDS);
+        if (!execInfo.isSuccess()) {
+            shape.errors().increment();
+        }
+
+        Map<Shape, int[]> perRequest = requestQueries.get();
+        if (perRequest != null && "select".equals(shape.operation)) {
+            perRequest.computeIfAbsent(shape, s -> new int[1])[0]++;
+        }
+
+        if (elapsedMs >= slowQueryThresholdMs) {
+            sqlLog.warn("Slow query {}ms shape={} batch={} sql={}",
+                elapsedMs, shape.id, execInfo.getBatchSize(), shape.sql);
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            sqlLog.info("Sampled query {}ms shape={} batch={} sql={}",
+                elapsedMs, shape.id, execInfo.getBatchSize(), shape.sql);
+        }
+    }
+
+    /** Starts counting SELECT shapes for the request running on this thread. */
+    public void beginRequest() {
+        requestQueries.set(new HashMap<>());
+    }
+
+    /** Reports shapes that repeated often enough to look like N+1 and stops counting. */
+    public void endRequest(String method, String route) {
+        Map<Shape, int[]> perRequest = requestQueries.get();
+        requestQueries.remove();
+        if (perRequest == null) {
+            return;
+        }
+        perRequest.forEach((shape, count) -> {
+            if (count[0] >= nPlusOneThreshold && shape != overflow) {
+                sqlLog.warn("Possible N+1 on {} {}: {} executions of shape={} sql={}",
+                    method, route, count[0], shape.id, shape.sql);
+                Counter.builder("db_n_plus_one_total")
+                    .description("Requests that repeated one SELECT shape at least n-plus-one-threshold times")
+                    .tags("method", method, "route", route, "shape", shape.id, "table", shape.table)
+                    .register(meterRegistry)
+                    .increment();
+            }
+        });
+    }
+
+    /** Literal-free form of a statement; equal for every execution of one query shape. */
+    static String normalize(String sql) {
+        String normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        return IN_LIST.matcher(normalized).replaceAll("in (?)");
+    }
+
+    int shapeCount() {
+        return shapes.size();
+    }
+
+    private Shape shapeOf(String sql) {
+        Shape shape = shapesBySql.get(sql);
+        if (shape != null) {
+            return shape;
+        }
+        String normalized = normalize(sql);
+        shape = shapes.get(normalized);
+        if (shape == null) {
+            // Beyond max-shapes everything lands in one series so ad-hoc SQL cannot grow the registry
+            shape = shapes.size() >= maxShapes ? overflow : shapes.computeIfAbsent(normalized, this::newShape);
+        }
+        if (shapesBySql.size() < MAX_CACHED_SQL) {
+            shapesBySql.put(sql, shape);
+        }
+        return shape;
+    }
+
+    private Shape newShape(String normalized) {
+        int space = normalized.indexOf(' ');
+        String operation = (space > 0 ? normalized.substring(0, space) : normalized).toLowerCase(Locale.ROOT);
+        Matcher table = TABLE.matcher(normalized);
+        String id = String.format("%08x", normalized.hashCode());
+        return new Shape(id, normalized, operation, table.find() ? table.group(1).toLowerCase(Locale.ROOT) : "none");
+    }
+
+    /** Meters for one normalised statement, registered on first execution. */
+    private final class Shape {
+        private final String id;
+        private final String sql;
+        private final String operation;
+        private final String table;
+        private final Timer timer;
+        private volatile Counter errors;
+
+        Shape(String id, String sql, String operation, String table) {
+            this.id = id;
+            this.sql = sql;
+            this.operation = operation;
+            this.table = table;
+            this.timer = Timer.builder("db_query_duration_seconds")
+                .description("JDBC statement execution time by query shape")
+                .tags("shape", id, "operation", operation, "table", table)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+        }
+
+        Counter errors() {
+            Counter counter = errors;
+            if (counter == null) {
+                counter = Counter.builder("db_query_errors_total")
+                    .description("JDBC statements that threw, by query shape")
+                    .tags("shape", id, "operation", operation, "table", table)
+                    .register(meterRegistry);
+                errors = counter;
+            }
+            return counter;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.chat.userservice.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.PackedHistogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency histogram over rolling time windows. Request threads record into a wait-free
+ * HdrHistogram {@link Recorder}; readers drain it into a ring of fixed-length time slots
+ * and merge the slots covering the requested window, so percentiles never need a sort.
+ */
+final class RollingLatencyHistogram {
+    static final long HIGHEST_TRACKABLE_MS = 60_000;
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+    private final long slotMs;
+    private final PackedHistogram[] slots;
+    private long currentSlot;
+    private Histogram recycled;
+
+    RollingLatencyHistogram(long slotMs, long maxWindowMs, long nowMs) {
+        this.slotMs = slotMs;
+        this.slots = new PackedHistogram[(int) (maxWindowMs / slotMs) + 1];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new PackedHistogram(HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+        }
+        this.currentSlot = nowMs / slotMs;
+    }
+
+    void record(long durationMs) {
+        recorder.recordValue(Math.max(0, Math.min(durationMs, HIGHEST_TRACKABLE_MS)));
+    }
+
+    /**
+     * Advances the ring to {@code nowMs} and moves values recorded since the last roll into
+     * the current slot. Rolling every few seconds keeps the attribution error to one tick.
+     */
+    synchronized void roll(long nowMs) {
+        long slot = nowMs / slotMs;
+        long advance = Math.min(slot - currentSlot, slots.length);
+        for (long i = 1; i <= advance; i++) {
+            slots[slotPosition(currentSlot + i)].reset();
+        }
+        if (slot > currentSlot) {
+            currentSlot = slot;
+        }
+
+        recycled = recorder.getIntervalHistogram(recycled);
+        slots[slotPosition(currentSlot)].add(recycled);
+    }
+
+    /** Values recorded in the current slot plus the preceding slots covering {@code windowMs}. */
+    synchronized Histogram window(long windowMs, long nowMs) {
+        roll(nowMs);
+        int count = (int) Math.min(windowMs / slotMs + 1, slots.length);
+        Histogram merged = new Histogram(HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+        for (int i = 0; i < count; i++) {
+            merged.add(slots[slotPosition(currentSlot - i)]);
+        }
+        return merged;
+    }
+
+    private int slotPosition(long slot) {
+        return (int) Math.floorMod(slot, (long) slots.length);
+    }
+
+    static Map<String, Object> summarize(Histogram histogram) {
+        long count = histogram.getTotalCount();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("count", count);
+        out.put("min", count > 0 ? histogram.getMinValue() : 0);
+        out.put("p50", histogram.getValueAtPercentile(50.0));
+        out.put("p95", histogram.getValueAtPercentile(95.0));
+        out.put("p99", histogram.getValueAtPercentile(99.0));
+        out.put("p999", histogram.getValueAtPercentile(99.9));
+        out.put("max", count > 0 ? histogram.getMaxValue() : 0);
+        out.put("avg", count > 0 ? Math.round(histogram.getMean() * 100.0) / 100.0 : 0);
+        return out;
+    }
+}
@@ -0,0 +1,7 @@
+package com.chat.userservice.repository;
+
+/**
+ * Projection of the columns login needs: identity plus the password hash, nothing else.
+ */
+public record UserCredentials(Long id, String username, String password) {
+}
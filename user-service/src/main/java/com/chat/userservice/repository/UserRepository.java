@@ -1,16 +1,48 @@
 package com.chat.userservice.repository;
 
 import com.chat.userservice.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
 
+    boolean existsByUsername(String username);
+    boolean existsByEmail(String email);
+
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    @Query("SELECT new com.chat.userservice.repository.UserCredentials(u.id, u.username, u.password) "
+        + "FROM User u WHERE u.username = :username")
+    Optional<UserCredentials> findCredentialsByUsername(@Param("username") String username);
+
+    @Query("SELECT u.username, u.id FROM User u WHERE u.username IN :usernames")
+    List<Object[]> findIdsByUsernameIn(@Param("usernames") Collection<String> usernames);
+
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
     @Query("SELECT COUNT(u) FROM User u WHERE u.active = true")
     long countActiveUsers();
+
+    // Keyset page: callers pass the last id they saw, so the query never scans skipped rows
+    @Query("SELECT new com.chat.userservice.repository.UserSummary(u.id, u.username, u.email, u.active, u.lastSeen) "
+        + "FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserSummary> findSummariesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // Keyset chunk of ids for a username prefix; the pattern must already be LIKE-escaped with '\'
+    @Query("SELECT u.id FROM User u WHERE u.username LIKE :pattern ESCAPE '\\' AND u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsByUsernameLike(@Param("pattern") String pattern, @Param("afterId") long afterId, Pageable pageable);
 }
@@ -0,0 +1,49 @@
+package com.chat.userservice.repository;
+
+import com.chat.userservice.entity.User;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Second-level-cache aware lookups and writes that Spring Data cannot derive.
+ * <p>
+ * Writes are plain JDBC that evict just the rows they touch through the public cache API. Bulk
+ * JPQL DML would make Hibernate drop the whole users region (and the username index) on every
+ * statement. The touched ids come back from the write itself as generated keys (RETURNING id on
+ * PostgreSQL), so no write costs an extra lookup. Deletes also drop the username index.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Loads by the username natural id; a cache hit issues no SQL. Outside a transaction the
+     * call still gets a managed session, which only borrows a connection on a cache miss.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    Optional<User> findCachedByUsername(String username);
+
+    /** Evicts users whose rows were changed outside Hibernate (plain JDBC). */
+    void evictFromCache(Collection<String> usernames);
+
+    int updatePasswordByUsername(String username, String password);
+
+    /** Matches only when the active flag actually flips, so the result tells callers whether it did. */
+    int flipActivityByUsername(String username, boolean active, LocalDateTime lastSeen);
+
+    int touchLastSeenByUsername(String username, LocalDateTime lastSeen);
+
+    /**
+     * Deletes the user in one statement that also returns the row's active flag, so a concurrent
+     * presence flush cannot flip it between a read and the delete. Empty when no row matched.
+     */
+    Optional<Boolean> deleteReturningActive(String username);
+
+    // Set-based deletes for bulk cleanup; split by active so counters can be adjusted without a read
+
+    int deleteByUsernameInAndActive(Collection<String> usernames, boolean active);
+
+    int deleteByIdInAndActive(Collection<Long> ids, boolean active);
+}
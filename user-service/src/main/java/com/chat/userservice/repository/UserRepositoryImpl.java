@@ -0,0 +1,176 @@
+package com.chat.userservice.repository;
+
+import com.chat.userservice.entity.User;
+import com.chat.userservice.util.TransactionCallbacks;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private static final String UPDATE_PASSWORD_SQL =
+        "UPDATE users SET password = :password WHERE username = :username";
+    private static final String FLIP_SQL =
+        "UPDATE users SET active = :active, last_seen = :lastSeen WHERE username = :username AND active <> :active";
+    private static final String TOUCH_SQL =
+        "UPDATE users SET last_seen = :lastSeen WHERE username = :username";
+    private static final String DELETE_SQL =
+        "DELETE FROM users WHERE username = :username";
+    // H2 returns no generated keys for DELETE; its data-change delta table reads the same row in one statement
+    private static final String H2_DELETE_RETURNING_SQL =
+        "SELECT id, active FROM OLD TABLE (DELETE FROM users WHERE username = :username)";
+    private static final String DELETE_BY_USERNAMES_SQL =
+        "DELETE FROM users WHERE username IN (:usernames) AND active = :active";
+    private static final String DELETE_BY_IDS_SQL =
+        "DELETE FROM users WHERE id IN (:ids) AND active = :active";
+    private static final String IDS_BY_USERNAMES_SQL =
+        "SELECT id FROM users WHERE username IN (:usernames)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private volatile Boolean deleteReturnsNoKeys;
+
+    @Override
+    public Optional<User> findCachedByUsername(String username) {
+        return entityManager.unwrap(Session.class).byNaturalId(User.class).using("username", username).loadOptional();
+    }
+
+    // Only presence flushes, which write in JDBC batches without generated keys, need the extra id query
+    @Override
+    public void evictFromCache(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+        evict(jdbcTemplate.queryForList(IDS_BY_USERNAMES_SQL, new MapSqlParameterSource("usernames", usernames),
+            Long.class), false);
+    }
+
+    @Override
+    public int updatePasswordByUsername(String username, String password) {
+        return write(UPDATE_PASSWORD_SQL, new MapSqlParameterSource("username", username).addValue("password", password),
+            false);
+    }
+
+    @Override
+    public int flipActivityByUsername(String username, boolean active, LocalDateTime lastSeen) {
+        return write(FLIP_SQL, new MapSqlParameterSource("username", username).addValue("active", active)
+            .addValue("lastSeen", Timestamp.valueOf(lastSeen)), false);
+    }
+
+    @Override
+    public int touchLastSeenByUsername(String username, LocalDateTime lastSeen) {
+        return write(TOUCH_SQL, new MapSqlParameterSource("username", username)
+            .addValue("lastSeen", Timestamp.valueOf(lastSeen)), false);
+    }
+
+    @Override
+    public Optional<Boolean> deleteReturningActive(String username) {
+        MapSqlParameterSource params = new MapSqlParameterSource("username", username);
+        List<Map<String, Object>> rows;
+        if (deleteReturnsNoKeys()) {
+            rows = jdbcTemplate.queryForList(H2_DELETE_RETURNING_SQL, params);
+        } else {
+            // PgJDBC appends RETURNING id, active for the requested key columns
+            GeneratedKeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.update(DELETE_SQL, params, keys, new String[] {"id", "active"});
+            rows = keys.getKeyList();
+        }
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, Object> row = rows.get(0);
+        evict(List.of(((Number) row.get("id")).longValue()), true);
+        return Optional.of((Boolean) row.get("active"));
+    }
+
+    // Deletes also drop the username -> id index, or a re-registered name would resolve to the old row
+    @Override
+    public int deleteByUsernameInAndActive(Collection<String> usernames, boolean active) {
+        if (usernames.isEmpty()) {
+            return 0;
+        }
+        return write(DELETE_BY_USERNAMES_SQL, new MapSqlParameterSource("usernames", usernames).addValue("active", active),
+            true);
+    }
+
+    @Override
+    public int deleteByIdInAndActive(Collection<Long> ids, boolean active) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = jdbcTemplate.update(DELETE_BY_IDS_SQL,
+            new MapSqlParameterSource("ids", ids).addValue("active", active));
+        if (deleted > 0) {
+            evict(ids, true);
+        }
+        return deleted;
+    }
+
+    /**
+     * Runs one write and evicts the rows it touched, whose ids come back as generated keys. A
+     * driver that returns no keys for the statement (H2 for DELETE) costs the whole users region
+     * instead of a lookup; only bulk deletes by username reach that on the drivers in use.
+     */
+    private int write(String sql, MapSqlParameterSource params, boolean deletes) {
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        int updated = jdbcTemplate.update(sql, params, keys, new String[] {"id"});
+        if (updated == 0) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(updated);
+        keys.getKeyList().forEach(key -> ids.add(((Number) key.values().iterator().next()).longValue()));
+        evict(ids.size() < updated ? null : ids, deletes);
+        return updated;
+    }
+
+    /**
+     * Evicts the given users (all of them for null) now, and again after the surrounding
+     * transaction commits so a racing load cannot re-cache the old row. The cache API cannot
+     * drop single username index entries, so deletes drop the whole index; lookups then
+     * re-resolve each username once, while entity entries of other users stay cached.
+     */
+    private void evict(Collection<Long> ids, boolean deletes) {
+        if (ids != null && ids.isEmpty() && !deletes) {
+            return;
+        }
+        Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        List<Long> evicted = ids == null ? null : List.copyOf(ids);
+        TransactionCallbacks.nowAndAfterCommit(() -> {
+            if (evicted == null) {
+                cache.evictEntityData(User.class);
+            } else {
+                evicted.forEach(id -> cache.evictEntityData(User.class, id));
+            }
+            if (deletes) {
+                cache.evictNaturalIdData(User.class);
+            }
+        });
+    }
+
+    private boolean deleteReturnsNoKeys() {
+        if (deleteReturnsNoKeys == null) {
+            deleteReturnsNoKeys = jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Boolean>) connection ->
+                "H2".equals(connection.getMetaData().getDatabaseProductName()));
+        }
+        return deleteReturnsNoKeys;
+    }
+}
@@ -0,0 +1,9 @@
+package com.chat.userservice.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of the dashboard columns; never carries the password hash.
+ */
+public record UserSummary(Long id, String username, String email, boolean active, LocalDateTime lastSeen) {
+}
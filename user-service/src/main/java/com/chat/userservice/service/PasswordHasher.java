@@ -0,0 +1,188 @@
+package com.chat.userservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs BCrypt on a dedicated, size-limited pool so CPU-bound hashing cannot exhaust the
+ * Tomcat workers that serve cheap endpoints. When the pool and its queue are full the
+ * caller gets a {@link PasswordHashingRejectedException} immediately (mapped to 503).
+ */
+@Component
+public class PasswordHasher {
+    private static final long BULK_RETRY_MS = 5;
+
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.hashing.threads:0}")
+    private int threads;
+
+    @Value("${security.hashing.queue-capacity:64}")
+    private int queueCapacity = 64;
+
+    @Value("${security.hashing.timeout-ms:10000}")
+    private long timeoutMs = 10000;
+
+    private int poolSize;
+    private ThreadPoolExecutor executor;
+    private Timer encodeWait;
+    private Timer encodeTime;
+    private Timer matchesWait;
+    private Timer matchesTime;
+    private Counter rejected;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "password-hasher-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+        encodeWait = timer("password_hash_queue_wait_seconds", "encode", "Time spent queued before hashing");
+        encodeTime = timer("password_hash_duration_seconds", "encode", "Time spent hashing");
+        matchesWait = timer("password_hash_queue_wait_seconds", "matches", "Time spent queued before hashing");
+        matchesTime = timer("password_hash_duration_seconds", "matches", "Time spent hashing");
+        rejected = Counter.builder("password_hash_rejected_total")
+            .description("Hashing requests rejected because the pool was saturated")
+            .register(meterRegistry);
+        meterRegistry.gauge("password_hash_queue_depth", executor, e -> e.getQueue().size());
+    }
+
+    public String encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword), encodeWait, encodeTime);
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword), matchesWait, matchesTime);
+    }
+
+    /**
+     * Encodes a batch in parallel, in input order. At most one task per pool thread is in
+     * flight at a time, and a full queue makes the batch back off rather than fail, so a bulk
+     * import yields to interactive requests instead of crowding them out.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        String[] encoded = new String[rawPasswords.size()];
+        Semaphore inFlight = new Semaphore(poolSize);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        try {
+            for (int i = 0; i < encoded.length && failure.get() == null; i++) {
+                inFlight.acquire();
+                int index = i;
+                Callable<Void> work = () -> {
+                    try {
+                        encoded[index] = passwordEncoder.encode(rawPasswords.get(index));
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                    return null;
+                };
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+                while (true) {
+                    try {
+                        enqueue(work, encodeWait, encodeTime);
+                        break;
+                    } catch (RejectedExecutionException e) {
+                        if (System.nanoTime() > deadline) {
+                            inFlight.release();
+                            rejected.increment();
+                            throw new PasswordHashingRejectedException("Password hashing capacity exhausted");
+                        }
+                        Thread.sleep(BULK_RETRY_MS);
+                    }
+                }
+            }
+            // Wait for the tail of the batch
+            inFlight.acquire(poolSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingRejectedException("Interrupted while waiting for password hashing");
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return Arrays.asList(encoded);
+    }
+
+    private <T> Future<T> enqueue(Callable<T> work, Timer waitTimer, Timer hashTimer) {
+        long enqueued = System.nanoTime();
+        return executor.submit(() -> {
+            long started = System.nanoTime();
+            waitTimer.record(started - enqueued, TimeUnit.NANOSECONDS);
+            try {
+                return work.call();
+            } finally {
+                hashTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    private <T> T submit(Callable<T> work, Timer waitTimer, Timer hashTimer) {
+        Future<T> future;
+        try {
+            future = enqueue(work, waitTimer, hashTimer);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException("Password hashing capacity exhausted");
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingRejectedException("Password hashing timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingRejectedException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    private Timer timer(String name, String operation, String description) {
+        return Timer.builder(name)
+            .description(description)
+            .tag("operation", operation)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,10 @@
+package com.chat.userservice.service;
+
+/**
+ * Thrown when the password hashing pool is saturated; callers should answer 503.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
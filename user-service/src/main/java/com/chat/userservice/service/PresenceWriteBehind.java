@@ -0,0 +1,183 @@
+package com.chat.userservice.service;
+
+import com.chat.userservice.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind buffer for login/logout presence. Updates are coalesced per user in memory
+ * (last write wins) and flushed as JDBC batches, so a login storm becomes a few batched
+ * statements instead of a read plus a full-entity save per request.
+ * <p>
+ * Flushes run on a dedicated thread rather than the shared @Scheduled pool, so a slow
+ * housekeeping job cannot stretch the staleness bound, and an overflow never makes the
+ * request that hit it wait for a database write.
+ */
+@Component
+public class PresenceWriteBehind {
+    private static final Logger log = LoggerFactory.getLogger(PresenceWriteBehind.class);
+
+    // Only rows whose active flag actually flips match, so update counts drive UserCounters
+    private static final String FLIP_SQL =
+        "UPDATE users SET active = ?, last_seen = ? WHERE username = ? AND active <> ?";
+    private static final String TOUCH_SQL =
+        "UPDATE users SET last_seen = ? WHERE username = ?";
+
+    record Presence(boolean active, LocalDateTime lastSeen) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserCounters userCounters;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserTableVersion userTableVersion;
+
+    @Value("${presence.write-behind.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${presence.write-behind.max-pending:10000}")
+    private int maxPending = 10000;
+
+    @Value("${presence.write-behind.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${presence.write-behind.flush-interval-ms:500}")
+    private long flushIntervalMs = 500;
+
+    private final ConcurrentHashMap<String, Presence> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean overflowFlushQueued = new AtomicBoolean();
+    // Only created when enabled; UserService writes presence directly otherwise
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "presence-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::scheduledFlush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Only for callers that checked {@link #isEnabled()}; a disabled buffer is never flushed. */
+    public void record(String username, boolean active) {
+        pending.put(username, new Presence(active, LocalDateTime.now()));
+        if (pending.size() >= maxPending && overflowFlushQueued.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                overflowFlushQueued.set(false);
+                scheduledFlush();
+            });
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /** Staleness is bounded by the flush interval (or max-pending, whichever is hit first). */
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, Presence>> batch = new ArrayList<>();
+        for (Map.Entry<String, Presence> entry : pending.entrySet()) {
+            // Remove only the value we saw; a newer update stays queued for the next flush
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+            if (batch.size() == batchSize) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    // An exception escaping here would cancel the periodic task for good
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Presence flush failed: {}", e.getMessage());
+        }
+    }
+
+    private void write(List<Map.Entry<String, Presence>> batch) {
+        try {
+            int[] flipped = jdbcTemplate.batchUpdate(FLIP_SQL, batch, batch.size(), (ps, entry) -> {
+                ps.setBoolean(1, entry.getValue().active());
+                ps.setTimestamp(2, Timestamp.valueOf(entry.getValue().lastSeen()));
+                ps.setString(3, entry.getKey());
+                ps.setBoolean(4, entry.getValue().active());
+            })[0];
+
+            List<Map.Entry<String, Presence>> unchanged = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (flipped[i] > 0) {
+                    boolean nowActive = batch.get(i).getValue().active();
+                    userCounters.activityChanged(!nowActive, nowActive);
+                } else {
+                    unchanged.add(batch.get(i));
+                }
+            }
+            if (!unchanged.isEmpty()) {
+                jdbcTemplate.batchUpdate(TOUCH_SQL, unchanged, unchanged.size(), (ps, entry) -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(entry.getValue().lastSeen()));
+                    ps.setString(2, entry.getKey());
+                });
+            }
+            // These rows changed behind Hibernate's back; drop any cached copies
+            userRepository.evictFromCache(batch.stream().map(Map.Entry::getKey).toList());
+            userTableVersion.changed();
+        } catch (Exception e) {
+            log.warn("Presence flush of {} users failed, requeueing: {}", batch.size(), e.getMessage());
+            batch.forEach(entry -> pending.putIfAbsent(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
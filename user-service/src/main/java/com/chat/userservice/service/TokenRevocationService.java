@@ -0,0 +1,283 @@
+package com.chat.userservice.service;
+
+import com.chat.userservice.entity.TokenRevocation;
+import com.chat.userservice.repository.TokenRevocationRepository;
+import com.chat.userservice.util.ExpiringLongSet;
+import com.chat.userservice.util.JwtPrincipal;
+import com.chat.userservice.util.TransactionCallbacks;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked tokens, checked on every authenticated request and every /validate call.
+ * <ul>
+ *   <li>Logout denylists the token's jti until the token expires, in a primitive
+ *       {@link ExpiringLongSet}.</li>
+ *   <li>Deleting a user records a per-user "issued before" epoch (per-prefix for bulk deletes
+ *       by prefix), so every token of that user is rejected without listing them.</li>
+ * </ul>
+ * Revocations are rows in token_revocations: applied here once they commit, picked up by the
+ * other replicas on the next sync, reloaded at startup, and served as deltas to downstream
+ * caches. Everything is dropped once no token it could match can still be valid.
+ */
+@Service
+public class TokenRevocationService {
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO " + TokenRevocation.TABLE
+        + " (kind, username, token_id, issued_before, expires_at, created_at_ms) VALUES (?, ?, ?, ?, ?, ?)";
+
+    /** A page of revocations; pass {@code version} back as {@code since} to continue. */
+    public record Deltas(long version, boolean hasMore, List<TokenRevocation> revocations) {
+    }
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TokenValidationCache tokenValidationCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.revocation.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${jwt.expiration:86400000}")
+    private long tokenLifetimeMs = 86_400_000;
+
+    @Value("${jwt.revocation.commit-grace-ms:2000}")
+    private long commitGraceMs = 2000;
+
+    @Value("${jwt.revocation.sync-batch-size:1000}")
+    private int syncBatchSize = 1000;
+
+    private final ExpiringLongSet revokedTokens = new ExpiringLongSet();
+    private final Map<String, Long> userEpochs = new ConcurrentHashMap<>();
+    private final Map<String, Long> prefixEpochs = new ConcurrentHashMap<>();
+    private volatile long syncedVersion;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("token_revocations", revokedTokens, ExpiringLongSet::size)
+            .description("Revocations held in memory")
+            .tag("kind", "token")
+            .register(meterRegistry);
+        Gauge.builder("token_revocations", userEpochs, Map::size)
+            .description("Revocations held in memory")
+            .tag("kind", "user")
+            .register(meterRegistry);
+        Gauge.builder("token_revocations", prefixEpochs, Map::size)
+            .description("Revocations held in memory")
+            .tag("kind", "prefix")
+            .register(meterRegistry);
+        sync();
+    }
+
+    /** O(1) for the jti and the user epoch; prefix epochs only exist briefly after bulk deletes. */
+    public boolean isRevoked(JwtPrincipal principal) {
+        if (!enabled) {
+            return false;
+        }
+        if (principal.tokenId() != null
+                && revokedTokens.contains(tokenKey(principal.tokenId()), System.currentTimeMillis() / 1000)) {
+            return true;
+        }
+        // iat has one-second resolution, so a token issued in the same second as the revocation is also revoked
+        long issuedAt = principal.issuedAt() == null ? Long.MIN_VALUE : principal.issuedAt().getTime() / 1000;
+        Long epoch = userEpochs.get(principal.username());
+        if (epoch != null && issuedAt <= epoch) {
+            return true;
+        }
+        if (!prefixEpochs.isEmpty()) {
+            for (Map.Entry<String, Long> prefix : prefixEpochs.entrySet()) {
+                if (issuedAt <= prefix.getValue() && principal.username().startsWith(prefix.getKey())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Logout: revokes just this token, or every earlier token of the user if it has no jti. */
+    public void revokeToken(JwtPrincipal principal) {
+        if (principal.tokenId() == null) {
+            revokeUsers(List.of(principal.username()));
+            return;
+        }
+        long issuedAt = principal.issuedAt() == null ? 0 : principal.issuedAt().getTime() / 1000;
+        long expiresAt = principal.expiration() == null
+            ? nowSeconds() + lifetimeSeconds() : principal.expiration().getTime() / 1000 + 1;
+        record(List.of(new TokenRevocation(TokenRevocation.Kind.TOKEN, principal.username(), principal.tokenId(),
+            issuedAt, expiresAt, System.currentTimeMillis())));
+    }
+
+    public void revokeUser(String username) {
+        revokeUsers(List.of(username));
+    }
+
+    /** Revokes every token issued to these users so far; joins the caller's transaction if there is one. */
+    public void revokeUsers(Collection<String> usernames) {
+        long now = nowSeconds();
+        long createdAtMs = System.currentTimeMillis();
+        List<TokenRevocation> rows = new ArrayList<>(usernames.size());
+        for (String username : new LinkedHashSet<>(usernames)) {
+            rows.add(new TokenRevocation(TokenRevocation.Kind.USER, username, null, now, now + lifetimeSeconds(), createdAtMs));
+        }
+        record(rows);
+    }
+
+    public void revokeUsernamePrefix(String prefix) {
+        long now = nowSeconds();
+        record(List.of(new TokenRevocation(TokenRevocation.Kind.PREFIX, prefix, null, now, now + lifetimeSeconds(),
+            System.currentTimeMillis())));
+    }
+
+    /**
+     * Revocations after {@code since}, oldest first. Only rows older than the commit grace are
+     * returned, so a row that commits late can never fall behind a version already handed out.
+     */
+    public Deltas deltas(long since, int limit) {
+        List<TokenRevocation> page = tokenRevocationRepository.findAfter(since, PageRequest.of(0, limit));
+        long safeUntilMs = System.currentTimeMillis() - commitGraceMs;
+        int settled = 0;
+        while (settled < page.size() && page.get(settled).getCreatedAtMs() <= safeUntilMs) {
+            settled++;
+        }
+        List<TokenRevocation> revocations = page.subList(0, settled);
+        long version = settled == 0 ? since : revocations.get(settled - 1).getId();
+        return new Deltas(version, settled == limit, revocations);
+    }
+
+    /** Applies revocations written since the last sync, including those from other replicas. */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:5000}",
+               initialDelayString = "${jwt.revocation.sync-interval-ms:5000}")
+    public synchronized void sync() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long applied = 0;
+            Deltas deltas;
+            do {
+                deltas = deltas(syncedVersion, syncBatchSize);
+                deltas.revocations().forEach(this::apply);
+                applied += deltas.revocations().size();
+                syncedVersion = deltas.version();
+            } while (deltas.hasMore());
+            if (applied > 0) {
+                log.debug("Applied {} token revocations up to version {}", applied, syncedVersion);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Token revocation sync failed, keeping version {}: {}", syncedVersion, e.getMessage());
+        }
+    }
+
+    /** Forgets revocations whose tokens have all expired, in memory and in the table. */
+    @Scheduled(fixedDelayString = "${jwt.revocation.prune-interval-ms:60000}")
+    public void prune() {
+        long now = nowSeconds();
+        long lifetime = lifetimeSeconds();
+        int tokens = revokedTokens.prune(now);
+        userEpochs.values().removeIf(epoch -> epoch + lifetime < now);
+        prefixEpochs.values().removeIf(epoch -> epoch + lifetime < now);
+        try {
+            int rows = tokenRevocationRepository.deleteExpired(now);
+            if (tokens > 0 || rows > 0) {
+                log.debug("Pruned {} expired token ids and {} revocation rows", tokens, rows);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Pruning token revocations failed: {}", e.getMessage());
+        }
+    }
+
+    public long version() {
+        return syncedVersion;
+    }
+
+    private void record(List<TokenRevocation> rows) {
+        if (!enabled || rows.isEmpty()) {
+            return;
+        }
+        // Plain JDBC batch: IDENTITY ids keep versions in insert order but disable Hibernate batching
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, syncBatchSize, (statement, row) -> {
+            statement.setString(1, row.getKind().name());
+            statement.setString(2, row.getUsername());
+            statement.setString(3, row.getTokenId());
+            statement.setLong(4, row.getIssuedBefore());
+            statement.setLong(5, row.getExpiresAt());
+            statement.setLong(6, row.getCreatedAtMs());
+        });
+        TransactionCallbacks.afterCommit(() -> rows.forEach(this::apply));
+    }
+
+    private void apply(TokenRevocation revocation) {
+        if (revocation.getExpiresAt() <= nowSeconds()) {
+            return;
+        }
+        switch (revocation.getKind()) {
+            case TOKEN -> {
+                revokedTokens.add(tokenKey(revocation.getTokenId()), revocation.getExpiresAt());
+                tokenValidationCache.invalidateUser(revocation.getUsername());
+            }
+            case USER -> {
+                userEpochs.merge(revocation.getUsername(), revocation.getIssuedBefore(), Math::max);
+                tokenValidationCache.invalidateUser(revocation.getUsername());
+            }
+            case PREFIX -> {
+                prefixEpochs.merge(revocation.getUsername(), revocation.getIssuedBefore(), Math::max);
+                tokenValidationCache.invalidateUsernamePrefix(revocation.getUsername());
+            }
+        }
+    }
+
+    /** The 64 bits of a jti minted by JwtUtil; any other jti is hashed down to 64 bits. */
+    static long tokenKey(String tokenId) {
+        if (tokenId.length() == 11) {
+            try {
+                byte[] bytes = Base64.getUrlDecoder().decode(tokenId);
+                long key = 0;
+                for (byte b : bytes) {
+                    key = (key << 8) | (b & 0xFF);
+                }
+                return key;
+            } catch (IllegalArgumentException e) {
+                // fall through to hashing
+            }
+        }
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < tokenId.length(); i++) {
+            hash = (hash ^ tokenId.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private long lifetimeSeconds() {
+        return tokenLifetimeMs / 1000 + 1;
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -0,0 +1,207 @@
+package com.chat.userservice.service;
+
+import com.chat.userservice.util.JwtPrincipal;
+import com.chat.userservice.util.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded cache of successful token validations keyed by SHA-256 digest of the token.
+ * Entries expire with the token itself (or earlier, after the configured TTL) and are
+ * dropped explicitly when the owning user logs out, changes password or is deleted.
+ * <p>
+ * Callers take a {@link #stamp} before looking the user up and pass it to {@link #put}; any
+ * invalidation of that user in between changes the stamp and the put is skipped, so a lookup
+ * that raced a delete or logout cannot re-cache the token. Entries keep the verified principal so
+ * a hit can still be checked against revocations synced from other replicas.
+ * <p>
+ * Once full, each put evicts the oldest entries in insertion order; expired entries are swept
+ * in the background, so neither costs a scan on the request path.
+ */
+@Component
+public class TokenValidationCache {
+
+    public record Entry(JwtPrincipal principal, Long userId, long expiresAtMillis) {
+        public String username() {
+            return principal.username();
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAtMillis;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> digestsByUser = new ConcurrentHashMap<>();
+    // Digests in insertion order; may hold digests already removed, which eviction skips and the sweep drops
+    private final ConcurrentLinkedQueue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    // Invalidation counters striped by username hash, so memory stays fixed however many users are invalidated
+    private final AtomicLongArray userGenerations = new AtomicLongArray(1024);
+    private final AtomicLong prefixGeneration = new AtomicLong();
+
+    @Value("${jwt.validation-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${jwt.validation-cache.max-size:10000}")
+    private int maxSize = 10000;
+
+    @Value("${jwt.validation-cache.ttl-ms:300000}")
+    private long ttlMs = 300000;
+
+    public Optional<Entry> get(String token) {
+        if (!enabled || token == null) {
+            return Optional.empty();
+        }
+        String digest = digest(token);
+        Entry entry = entries.get(digest);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            remove(digest, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry);
+    }
+
+    /** Read before the lookup whose result is passed to {@link #put}. */
+    public long stamp(String username) {
+        return username == null ? 0 : userGenerations.get(stripe(username)) + prefixGeneration.get();
+    }
+
+    public void put(String token, JwtPrincipal principal, Long userId, long stamp) {
+        if (!enabled || token == null || principal.username() == null || principal.expiration() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(principal.expiration().getTime(), now + ttlMs);
+        if (expiresAt <= now) {
+            return;
+        }
+        String digest = digest(token);
+        Entry entry = new Entry(principal, userId, expiresAt);
+        // Stamp check, index and entry all happen under the user's bin lock, which invalidation also takes
+        digestsByUser.compute(principal.username(), (u, digests) -> {
+            if (stamp(u) != stamp) {
+                return digests;
+            }
+            Set<String> indexed = digests != null ? digests : ConcurrentHashMap.newKeySet();
+            indexed.add(digest);
+            if (entries.put(digest, entry) == null) {
+                insertionOrder.add(digest);
+            }
+            return indexed;
+        });
+        evictOverflow();
+    }
+
+    /**
+     * Drops the user's entries now and, inside a transaction, again after it commits: a lookup
+     * that read the row before the commit would otherwise be stamped after the first drop.
+     */
+    public void invalidateUser(String username) {
+        if (username == null) {
+            return;
+        }
+        TransactionCallbacks.nowAndAfterCommit(() -> invalidateNow(username));
+    }
+
+    public void invalidateUsernamePrefix(String prefix) {
+        TransactionCallbacks.nowAndAfterCommit(() -> invalidatePrefixNow(prefix));
+    }
+
+    private void invalidateNow(String username) {
+        digestsByUser.compute(username, (u, digests) -> {
+            userGenerations.incrementAndGet(stripe(u));
+            if (digests != null) {
+                digests.forEach(entries::remove);
+            }
+            return null;
+        });
+    }
+
+    private void invalidatePrefixNow(String prefix) {
+        // Bumped first: a put that has not reached its user's bin yet sees a new stamp, one that has is iterated below
+        prefixGeneration.incrementAndGet();
+        for (String username : digestsByUser.keySet()) {
+            if (username.startsWith(prefix)) {
+                digestsByUser.computeIfPresent(username, (u, digests) -> {
+                    digests.forEach(entries::remove);
+                    return null;
+                });
+            }
+        }
+    }
+
+    public void clear() {
+        prefixGeneration.incrementAndGet();
+        entries.clear();
+        digestsByUser.clear();
+        insertionOrder.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.validation-cache.sweep-interval-ms:30000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.forEach((digest, entry) -> {
+            if (entry.isExpired(now)) {
+                remove(digest, entry);
+            }
+        });
+        insertionOrder.removeIf(digest -> !entries.containsKey(digest));
+    }
+
+    // Each queued digest is polled at most once, so eviction is amortized O(1) per put
+    private void evictOverflow() {
+        while (entries.size() > maxSize) {
+            String oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            Entry entry = entries.get(oldest);
+            if (entry != null) {
+                remove(oldest, entry);
+            }
+        }
+    }
+
+    private void remove(String digest, Entry entry) {
+        if (entries.remove(digest, entry)) {
+            digestsByUser.computeIfPresent(entry.username(), (u, digests) -> {
+                digests.remove(digest);
+                return digests.isEmpty() ? null : digests;
+            });
+        }
+    }
+
+    private int stripe(String username) {
+        int h = username.hashCode();
+        return (h ^ (h >>> 16)) & (userGenerations.length() - 1);
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.chat.userservice.service;
+
+import com.chat.userservice.dto.BulkImportUser;
+import com.chat.userservice.entity.User;
+import com.chat.userservice.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk user creation and removal for seeding, migrations and loadgen cleanup. Rows are written
+ * in chunked transactions through Hibernate's JDBC batching (sequence ids,
+ * hibernate.jdbc.batch_size, order_inserts), and passwords are hashed in parallel on the
+ * {@link PasswordHasher} pool before each chunk's transaction starts, so no connection is held
+ * while BCrypt runs. Deletes are set-based, one {@code DELETE ... IN} pair per chunk.
+ */
+@Service
+public class UserBulkService {
+    private static final Logger log = LoggerFactory.getLogger(UserBulkService.class);
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile(BulkImportUser.BCRYPT_HASH);
+
+    /** One user to create; supply either a raw password or an existing BCrypt hash. */
+    public record NewUser(String username, String email, String password, String passwordHash) {
+    }
+
+    public record Rejection(String username, String reason) {
+    }
+
+    public record ImportResult(int requested, int created, List<Rejection> rejected, long durationMs) {
+        public long rowsPerSecond() {
+            return durationMs == 0 ? created * 1000L : created * 1000L / durationMs;
+        }
+    }
+
+    public record DeleteResult(int requested, int deleted, int active, int chunks, long durationMs) {
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private UserCounters userCounters;
+
+    @Autowired
+    private UserExistenceFilter userExistenceFilter;
+
+    @Autowired
+    private TokenValidationCache tokenValidationCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private UserTableVersion userTableVersion;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${bulk-import.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${bulk-delete.chunk-size:1000}")
+    private int deleteChunkSize = 1000;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize = 50;
+
+    public ImportResult importUsers(List<NewUser> users) {
+        long started = System.nanoTime();
+        List<Rejection> rejected = new ArrayList<>();
+        List<NewUser> candidates = validate(users, rejected);
+
+        int created = 0;
+        for (int from = 0; from < candidates.size(); from += chunkSize) {
+            List<NewUser> chunk = candidates.subList(from, Math.min(from + chunkSize, candidates.size()));
+            created += importChunk(chunk, rejected);
+        }
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Bulk import created {} of {} users in {} ms", created, users.size(), durationMs);
+        return new ImportResult(users.size(), created, rejected, durationMs);
+    }
+
+    /** Deletes the named users; names that do not exist are simply not counted. */
+    public DeleteResult deleteUsers(Collection<String> usernames) {
+        long started = System.nanoTime();
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(usernames));
+        int deleted = 0;
+        int active = 0;
+        int chunks = 0;
+        for (int from = 0; from < distinct.size(); from += deleteChunkSize) {
+            List<String> chunk = distinct.subList(from, Math.min(from + deleteChunkSize, distinct.size()));
+            int[] counts = inTransaction(() -> {
+                int[] removed = {
+                    userRepository.deleteByUsernameInAndActive(chunk, true),
+                    userRepository.deleteByUsernameInAndActive(chunk, false)
+                };
+                tokenRevocationService.revokeUsers(chunk);
+                return removed;
+            });
+            chunk.forEach(tokenValidationCache::invalidateUser);
+            active += counts[0];
+            deleted += counts[0] + counts[1];
+            chunks++;
+        }
+        return deleted(usernames.size(), deleted, active, chunks, started);
+    }
+
+    /**
+     * Deletes every user whose username starts with {@code prefix} (taken literally, not as a
+     * LIKE pattern). Ids are walked in keyset order so each chunk is an index range scan.
+     */
+    public DeleteResult deleteUsersByPrefix(String prefix) {
+        long started = System.nanoTime();
+        String pattern = escapeLike(prefix) + "%";
+        int deleted = 0;
+        int active = 0;
+        int chunks = 0;
+        long afterId = 0;
+        while (true) {
+            long after = afterId;
+            List<Long> ids = userRepository.findIdsByUsernameLike(pattern, after, PageRequest.of(0, deleteChunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            int[] counts = inTransaction(() -> new int[] {
+                userRepository.deleteByIdInAndActive(ids, true),
+                userRepository.deleteByIdInAndActive(ids, false)
+            });
+            active += counts[0];
+            deleted += counts[0] + counts[1];
+            chunks++;
+            if (ids.size() < deleteChunkSize) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        tokenValidationCache.invalidateUsernamePrefix(prefix);
+        if (deleted > 0) {
+            tokenRevocationService.revokeUsernamePrefix(prefix);
+        }
+        return deleted(deleted, deleted, active, chunks, started);
+    }
+
+    private int[] inTransaction(Supplier<int[]> deletes) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            int[] counts = deletes.get();
+            userCounters.usersRemoved(counts[0] + counts[1], counts[0]);
+            if (counts[0] + counts[1] > 0) {
+                userTableVersion.changed();
+            }
+            return counts;
+        });
+    }
+
+    private DeleteResult deleted(int requested, int deleted, int active, int chunks, long started) {
+        userExistenceFilter.removed(deleted);
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Bulk delete removed {} users in {} chunks in {} ms", deleted, chunks, durationMs);
+        return new DeleteResult(requested, deleted, active, chunks, durationMs);
+    }
+
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private List<NewUser> validate(List<NewUser> users, List<Rejection> rejected) {
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<NewUser> candidates = new ArrayList<>(users.size());
+        for (NewUser user : users) {
+            if (isBlank(user.username()) || isBlank(user.email())) {
+                rejected.add(new Rejection(user.username(), "username and email are required"));
+            } else if (user.passwordHash() != null && !BCRYPT_HASH.matcher(user.passwordHash()).matches()) {
+                rejected.add(new Rejection(user.username(), "passwordHash is not a BCrypt hash"));
+            } else if (user.passwordHash() == null && isBlank(user.password())) {
+                rejected.add(new Rejection(user.username(), "password or passwordHash is required"));
+            } else if (!usernames.add(user.username()) || !emails.add(user.email())) {
+                rejected.add(new Rejection(user.username(), "duplicate in request"));
+            } else {
+                candidates.add(user);
+            }
+        }
+        return candidates;
+    }
+
+    private int importChunk(List<NewUser> chunk, List<Rejection> rejected) {
+        List<NewUser> fresh = withoutExisting(chunk, rejected, true);
+        if (fresh.isEmpty()) {
+            return 0;
+        }
+        List<User> entities = toEntities(fresh);
+        try {
+            persist(entities);
+        } catch (DataIntegrityViolationException | ConstraintViolationException e) {
+            // A row the filter did not know about (concurrent registration, another instance) took
+            // one of the names; re-check against the database alone and retry the rest once,
+            // reusing the hashes (the rolled-back entities already carry ids, so copy them)
+            Set<String> stillFree = new HashSet<>();
+            withoutExisting(fresh, rejected, false).forEach(user -> stillFree.add(user.username()));
+            entities = entities.stream()
+                .filter(user -> stillFree.contains(user.getUsername()))
+                .map(user -> new User(user.getUsername(), user.getEmail(), user.getPassword()))
+                .toList();
+            try {
+                persist(entities);
+            } catch (DataIntegrityViolationException | ConstraintViolationException retryFailure) {
+                entities.forEach(user -> rejected.add(new Rejection(user.getUsername(), "conflict")));
+                return 0;
+            }
+        }
+        entities.forEach(user -> userExistenceFilter.add(user.getUsername(), user.getEmail()));
+        return entities.size();
+    }
+
+    private List<NewUser> withoutExisting(List<NewUser> chunk, List<Rejection> rejected, boolean useFilter) {
+        // Only names the Bloom filter cannot rule out need the IN queries
+        Set<String> takenUsernames = existing(chunk.stream().map(NewUser::username)
+            .filter(username -> !useFilter || userExistenceFilter.mightContainUsername(username)).toList(), true);
+        Set<String> takenEmails = existing(chunk.stream().map(NewUser::email)
+            .filter(email -> !useFilter || userExistenceFilter.mightContainEmail(email)).toList(), false);
+        List<NewUser> fresh = new ArrayList<>(chunk.size());
+        for (NewUser user : chunk) {
+            if (takenUsernames.contains(user.username())) {
+                rejected.add(new Rejection(user.username(), "Username already exists"));
+            } else if (takenEmails.contains(user.email())) {
+                rejected.add(new Rejection(user.username(), "Email already exists"));
+            } else {
+                fresh.add(user);
+            }
+        }
+        return fresh;
+    }
+
+    private Set<String> existing(Collection<String> values, boolean usernames) {
+        if (values.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(usernames
+            ? userRepository.findExistingUsernames(values)
+            : userRepository.findExistingEmails(values));
+    }
+
+    private List<User> toEntities(List<NewUser> users) {
+        List<String> raw = new ArrayList<>();
+        for (NewUser user : users) {
+            if (user.passwordHash() == null) {
+                raw.add(user.password());
+            }
+        }
+        List<String> encoded = passwordHasher.encodeAll(raw);
+        List<User> entities = new ArrayList<>(users.size());
+        int next = 0;
+        for (NewUser user : users) {
+            String hash = user.passwordHash() != null ? user.passwordHash() : encoded.get(next++);
+            entities.add(new User(user.username(), user.email(), hash));
+        }
+        return entities;
+    }
+
+    private void persist(List<User> entities) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            // Don't churn the second-level cache with rows nobody has asked for yet
+            session.setCacheMode(CacheMode.IGNORE);
+            for (int i = 0; i < entities.size(); i++) {
+                session.persist(entities.get(i));
+                if ((i + 1) % jdbcBatchSize == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            session.flush();
+            session.clear();
+            userCounters.usersAdded(entities.size());
+            userTableVersion.changed();
+        });
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,104 @@
+package com.chat.userservice.service;
+
+import com.chat.userservice.repository.UserRepository;
+import com.chat.userservice.util.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory total/active user counts for the dashboard. Seeded from the database at
+ * startup, adjusted by {@link UserService} writes after they commit, and periodically
+ * reconciled so any drift (other writers, rolled back transactions) is corrected. Drift
+ * also means the table changed elsewhere, so it moves {@link UserTableVersion} too.
+ */
+@Component
+public class UserCounters {
+    private static final Logger log = LoggerFactory.getLogger(UserCounters.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserTableVersion userTableVersion;
+
+    @Value("${user-counters.serve-from-memory:true}")
+    private boolean serveFromMemory = true;
+
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong active = new AtomicLong();
+    private volatile boolean seeded;
+
+    @PostConstruct
+    public void seed() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${user-counters.reconcile-interval-ms:60000}",
+               initialDelayString = "${user-counters.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        try {
+            long countedTotal = userRepository.count();
+            long countedActive = userRepository.countActiveUsers();
+            long previousTotal = total.getAndSet(countedTotal);
+            long previousActive = active.getAndSet(countedActive);
+            // A local write racing the counts costs pollers at most one extra full response
+            if (seeded && (previousTotal != countedTotal || previousActive != countedActive)) {
+                userTableVersion.changed();
+            }
+            seeded = true;
+        } catch (Exception e) {
+            log.warn("User counter reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    /** True when totals can be answered without SQL. */
+    public boolean isAvailable() {
+        return serveFromMemory && seeded;
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getActive() {
+        return active.get();
+    }
+
+    public void userAdded() {
+        TransactionCallbacks.afterCommit(total::incrementAndGet);
+    }
+
+    public void usersAdded(int count) {
+        TransactionCallbacks.afterCommit(() -> total.addAndGet(count));
+    }
+
+    public void userRemoved(boolean wasActive) {
+        TransactionCallbacks.afterCommit(() -> {
+            total.decrementAndGet();
+            if (wasActive) {
+                active.decrementAndGet();
+            }
+        });
+    }
+
+    public void usersRemoved(long count, long activeCount) {
+        TransactionCallbacks.afterCommit(() -> {
+            total.addAndGet(-count);
+            active.addAndGet(-activeCount);
+        });
+    }
+
+    public void activityChanged(boolean wasActive, boolean nowActive) {
+        if (wasActive == nowActive) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(nowActive ? active::incrementAndGet : active::decrementAndGet);
+    }
+}
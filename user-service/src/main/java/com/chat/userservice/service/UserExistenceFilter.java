@@ -0,0 +1,147 @@
+package com.chat.userservice.service;
+
+import com.chat.userservice.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bloom filter of registered usernames and emails. A negative answer means the value is
+ * certainly free, so registration can skip its existence lookups; a positive answer only
+ * means "maybe taken" and falls through to the database. The unique constraints on
+ * {@code users} remain the final arbiter. Deletes cannot clear bits, so the filter is
+ * rebuilt from the table periodically (and grown if it has outrun its sizing), and sooner
+ * once enough users have been removed to make its "maybe" answers mostly stale.
+ */
+@Component
+public class UserExistenceFilter {
+    private static final Logger log = LoggerFactory.getLogger(UserExistenceFilter.class);
+
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String EMAIL_PREFIX = "e:";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${registration.existence-filter.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${registration.existence-filter.expected-insertions:1000000}")
+    private long expectedInsertions = 1_000_000;
+
+    @Value("${registration.existence-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    @Value("${registration.existence-filter.fetch-size:5000}")
+    private int fetchSize = 5000;
+
+    @Value("${registration.existence-filter.rebuild-after-deletes:10000}")
+    private long rebuildAfterDeletes = 10_000;
+
+    private final AtomicLong removedSinceRebuild = new AtomicLong();
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+    private Counter definitelyFree;
+    private Counter maybeTaken;
+
+    @PostConstruct
+    public void init() {
+        definitelyFree = Counter.builder("registration_existence_checks_total")
+            .description("Registration existence checks answered by the Bloom filter")
+            .tag("result", "definitely_free")
+            .register(meterRegistry);
+        maybeTaken = Counter.builder("registration_existence_checks_total")
+            .description("Registration existence checks answered by the Bloom filter")
+            .tag("result", "maybe_taken")
+            .register(meterRegistry);
+        rebuild();
+    }
+
+    /** Streams the users table into a fresh filter and swaps it in. */
+    @Scheduled(fixedDelayString = "${registration.existence-filter.rebuild-interval-ms:3600000}",
+               initialDelayString = "${registration.existence-filter.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            removedSinceRebuild.set(0);
+            long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+            BloomFilter next = new BloomFilter(Math.max(expectedInsertions, rows * 2), falsePositiveRate);
+            // Registrations that commit while the scan runs are added to both filters
+            building = next;
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement("SELECT username, email FROM users");
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, resultSet -> {
+                next.put(USERNAME_PREFIX + resultSet.getString(1));
+                next.put(EMAIL_PREFIX + resultSet.getString(2));
+            });
+            filter = next;
+        } catch (Exception e) {
+            log.warn("User existence filter rebuild failed: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    /** Rebuilds early when bulk deletes have left many stale entries behind. */
+    @Scheduled(fixedDelayString = "${registration.existence-filter.stale-check-interval-ms:60000}")
+    public void rebuildIfStale() {
+        if (removedSinceRebuild.get() >= rebuildAfterDeletes) {
+            rebuild();
+        }
+    }
+
+    /** Called after users have been deleted; their bits stay set until the next rebuild. */
+    public void removed(long count) {
+        removedSinceRebuild.addAndGet(count);
+    }
+
+    /** False only when no user can have this username; true when unsure. */
+    public boolean mightContainUsername(String username) {
+        return check(USERNAME_PREFIX + username);
+    }
+
+    /** False only when no user can have this email; true when unsure. */
+    public boolean mightContainEmail(String email) {
+        return check(EMAIL_PREFIX + email);
+    }
+
+    /** Called after a user has been committed. */
+    public void add(String username, String email) {
+        for (BloomFilter target : new BloomFilter[] {filter, building}) {
+            if (target != null) {
+                target.put(USERNAME_PREFIX + username);
+                target.put(EMAIL_PREFIX + email);
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && filter != null;
+    }
+
+    private boolean check(String key) {
+        BloomFilter current = filter;
+        if (!enabled || current == null) {
+            return true;
+        }
+        boolean maybe = current.mightContain(key);
+        (maybe ? maybeTaken : definitelyFree).increment();
+        return maybe;
+    }
+}
@@ -1,13 +1,19 @@
 package com.chat.userservice.service;
 
 import com.chat.userservice.entity.User;
+import com.chat.userservice.repository.UserCredentials;
 import com.chat.userservice.repository.UserRepository;
+import com.chat.userservice.repository.UserSummary;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -16,49 +22,87 @@ public class UserService {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private TokenValidationCache tokenValidationCache;
+
+    @Autowired
+    private UserCounters userCounters;
+
+    @Autowired
+    private PresenceWriteBehind presenceWriteBehind;
+
+    @Autowired
+    private UserExistenceFilter userExistenceFilter;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private UserTableVersion userTableVersion;
 
     public User registerUser(String username, String email, String password) {
-        if (userRepository.findByUsername(username).isPresent()) {
+        // The filter answers the common "name is free" case without touching the database
+        if (userExistenceFilter.mightContainUsername(username) && userRepository.existsByUsername(username)) {
             throw new RuntimeException("Username already exists");
         }
-        if (userRepository.findByEmail(email).isPresent()) {
+        if (userExistenceFilter.mightContainEmail(email) && userRepository.existsByEmail(email)) {
             throw new RuntimeException("Email already exists");
         }
 
-        User user = new User(username, email, passwordEncoder.encode(password));
-        return userRepository.save(user);
+        User user = new User(username, email, passwordHasher.encode(password));
+        User saved;
+        try {
+            saved = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent registration; the unique constraints caught it
+            throw new RuntimeException(userRepository.existsByUsername(username)
+                ? "Username already exists" : "Email already exists");
+        }
+        userCounters.userAdded();
+        userTableVersion.changed();
+        userExistenceFilter.add(username, email);
+        return saved;
     }
 
-    public Optional<User> authenticateUser(String username, String password) {
-        Optional<User> user = userRepository.findByUsername(username);
-        if (user.isPresent() && passwordEncoder.matches(password, user.get().getPassword())) {
-            return user;
+    public Optional<UserCredentials> authenticateUser(String username, String password) {
+        Optional<UserCredentials> credentials = userRepository.findCredentialsByUsername(username);
+        if (credentials.isPresent() && passwordHasher.matches(password, credentials.get().password())) {
+            return credentials;
         }
         return Optional.empty();
     }
 
     public void updateUserActivity(String username, boolean active) {
-        userRepository.findByUsername(username).ifPresent(user -> {
-            user.setActive(active);
-            user.setLastSeen(LocalDateTime.now());
-            userRepository.save(user);
-        });
+        if (!active) {
+            tokenValidationCache.invalidateUser(username);
+        }
+        if (presenceWriteBehind.isEnabled()) {
+            presenceWriteBehind.record(username, active);
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (userRepository.flipActivityByUsername(username, active, now) > 0) {
+            userCounters.activityChanged(!active, active);
+            userTableVersion.changed();
+        } else if (userRepository.touchLastSeenByUsername(username, now) > 0) {
+            userTableVersion.changed();
+        }
     }
 
-    @Transactional
+    // Not transactional: hashing happens before the single UPDATE so no connection is held during BCrypt
     public boolean updatePassword(String username, String newPassword) {
         try {
-            Optional<User> userOpt = userRepository.findByUsername(username);
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                String encodedPassword = passwordEncoder.encode(newPassword);
-                user.setPassword(encodedPassword);
-                userRepository.save(user);
-                userRepository.flush(); // Force immediate database write
+            String encodedPassword = passwordHasher.encode(newPassword);
+            if (userRepository.updatePasswordByUsername(username, encodedPassword) > 0) {
+                tokenValidationCache.invalidateUser(username);
+                userTableVersion.changed();
                 return true;
             }
             return false;
+        } catch (PasswordHashingRejectedException e) {
+            throw e;
         } catch (Exception e) {
             return false;
         }
@@ -68,25 +112,49 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    public List<UserSummary> getUserPage(long afterId, int limit) {
+        return userRepository.findSummariesAfter(afterId, PageRequest.of(0, limit));
+    }
+
     public long getTotalUsers() {
-        return userRepository.count();
+        return userCounters.isAvailable() ? userCounters.getTotal() : userRepository.count();
     }
 
     public long getActiveUsers() {
-        return userRepository.countActiveUsers();
+        return userCounters.isAvailable() ? userCounters.getActive() : userRepository.countActiveUsers();
     }
 
     public Optional<User> getUserByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userRepository.findCachedByUsername(username);
+    }
+
+    // Served from the second-level cache when warm; the id of a username never changes
+    public Optional<Long> getUserIdByUsername(String username) {
+        return userRepository.findCachedByUsername(username).map(User::getId);
+    }
+
+    public Map<String, Long> getUserIdsByUsernames(Collection<String> usernames) {
+        Map<String, Long> ids = new HashMap<>();
+        if (usernames.isEmpty()) {
+            return ids;
+        }
+        for (Object[] row : userRepository.findIdsByUsernameIn(usernames)) {
+            ids.put((String) row[0], (Long) row[1]);
+        }
+        return ids;
     }
 
     @Transactional
     public boolean deleteUser(String username) {
-        Optional<User> userOpt = userRepository.findByUsername(username);
-        if (userOpt.isPresent()) {
-            userRepository.delete(userOpt.get());
-            return true;
+        // The returned flag tells us which counter to adjust without loading the entity
+        Optional<Boolean> wasActive = userRepository.deleteReturningActive(username);
+        if (wasActive.isEmpty()) {
+            return false;
         }
-        return false;
+        userCounters.userRemoved(wasActive.get());
+        userTableVersion.changed();
+        tokenValidationCache.invalidateUser(username);
+        tokenRevocationService.revokeUser(username);
+        return true;
     }
 }
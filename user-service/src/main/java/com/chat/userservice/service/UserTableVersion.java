@@ -0,0 +1,86 @@
+package com.chat.userservice.service;
+
+import com.chat.userservice.util.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the users table as seen by this replica, published as the ETag of the
+ * dashboard and user lookups so unchanged polls get a 304 without running a query. Writes made
+ * here bump it after they commit. Inserts from other replicas are noticed within seconds by
+ * polling the highest id, an index-only lookup; their deletes and presence flips only when
+ * {@link UserCounters}' reconciliation finds the counts drifted, which reuses its COUNT queries
+ * instead of scanning the table again. The tag carries a per-process id, so it never matches
+ * across restarts or replicas.
+ */
+@Component
+public class UserTableVersion {
+    private static final Logger log = LoggerFactory.getLogger(UserTableVersion.class);
+
+    private static final String MAX_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM users";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${user-version.enabled:true}")
+    private boolean enabled = true;
+
+    private final String instance = Long.toString(new SecureRandom().nextLong() >>> 1, 36);
+    private final AtomicLong version = new AtomicLong();
+    private volatile Long maxId;
+
+    @PostConstruct
+    public void seed() {
+        reconcile();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Weak only so Tomcat still gzips the body (it refuses to compress strongly tagged responses);
+     * If-None-Match uses weak comparison, so polling behaves exactly as with a strong tag.
+     */
+    public String etag() {
+        return "W/\"" + instance + "-" + version.get() + "\"";
+    }
+
+    /** Called by every write to the users table; joins the caller's transaction if there is one. */
+    public void changed() {
+        TransactionCallbacks.afterCommit(version::incrementAndGet);
+    }
+
+    /** Cheap check for rows inserted elsewhere. */
+    @Scheduled(fixedDelayString = "${user-version.reconcile-interval-ms:5000}",
+               initialDelayString = "${user-version.reconcile-interval-ms:5000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Long current = jdbcTemplate.queryForObject(MAX_ID_SQL, Long.class);
+            Long previous = maxId;
+            maxId = current;
+            // Local writes also move these signals, which costs pollers at most one extra full response
+            if (previous != null && !previous.equals(current)) {
+                version.incrementAndGet();
+            }
+        } catch (Exception e) {
+            log.warn("User table max id check failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.chat.userservice.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Set of 64-bit keys that each carry an expiry, stored in two parallel primitive arrays with
+ * linear probing (16 bytes per slot, at most half full) instead of boxed map entries. Lookups
+ * are lock-free optimistic reads; writes and {@link #prune} take the write lock. Expired keys
+ * stop matching immediately and are dropped on the next prune or resize.
+ */
+public final class ExpiringLongSet {
+
+    private static final int MIN_CAPACITY = 64;
+
+    private final StampedLock lock = new StampedLock();
+    // expiries[i] == 0 marks an empty slot, so a key is stored with any expiry > 0
+    private long[] keys = new long[MIN_CAPACITY];
+    private long[] expiries = new long[MIN_CAPACITY];
+    private int size;
+
+    /** Adds {@code key} until {@code expiresAt} (any positive clock value); re-adding keeps the later expiry. */
+    public void add(long key, long expiresAt) {
+        if (expiresAt <= 0) {
+            throw new IllegalArgumentException("expiresAt must be positive");
+        }
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) * 2 > keys.length) {
+                rehash(keys.length * 2, Long.MIN_VALUE);
+            }
+            int slot = slot(keys, expiries, key);
+            if (expiries[slot] == 0) {
+                keys[slot] = key;
+                size++;
+            }
+            expiries[slot] = Math.max(expiries[slot], expiresAt);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** True if {@code key} was added and has not expired at {@code now}. */
+    public boolean contains(long key, long now) {
+        long stamp = lock.tryOptimisticRead();
+        long expiry = expiryOf(key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                expiry = expiryOf(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return expiry > now;
+    }
+
+    /** Drops keys that expired at or before {@code now} and shrinks the table if it is mostly empty. */
+    public int prune(long now) {
+        long stamp = lock.writeLock();
+        try {
+            int before = size;
+            int live = 0;
+            for (long expiry : expiries) {
+                if (expiry > now) {
+                    live++;
+                }
+            }
+            rehash(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, live) * 4 - 1)), now);
+            return before - size;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private long expiryOf(long key) {
+        // Local copies: under an optimistic read the fields may be swapped mid-lookup, and the
+        // result is then discarded by validate(); the probe is bounded either way
+        long[] currentKeys = keys;
+        long[] currentExpiries = expiries;
+        if (currentKeys.length != currentExpiries.length) {
+            return 0;
+        }
+        int mask = currentKeys.length - 1;
+        int index = (int) mix(key) & mask;
+        for (int probes = 0; probes < currentKeys.length; probes++) {
+            long expiry = currentExpiries[index];
+            if (expiry == 0) {
+                return 0;
+            }
+            if (currentKeys[index] == key) {
+                return expiry;
+            }
+            index = (index + 1) & mask;
+        }
+        return 0;
+    }
+
+    private static int slot(long[] keys, long[] expiries, long key) {
+        int mask = keys.length - 1;
+        int index = (int) mix(key) & mask;
+        while (expiries[index] != 0 && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void rehash(int capacity, long dropExpiredAt) {
+        long[] newKeys = new long[capacity];
+        long[] newExpiries = new long[capacity];
+        int live = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (expiries[i] != 0 && expiries[i] > dropExpiredAt) {
+                int slot = slot(newKeys, newExpiries, keys[i]);
+                newKeys[slot] = keys[i];
+                newExpiries[slot] = expiries[i];
+                live++;
+            }
+        }
+        // Expiries first: a racing optimistic reader that sees mismatched lengths just retries
+        expiries = newExpiries;
+        keys = newKeys;
+        size = live;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,10 @@
+package com.chat.userservice.util;
+
+import java.util.Date;
+
+/**
+ * Verified contents of a JWT, produced by a single parse in {@link JwtUtil#parse(String)}.
+ * {@code userId} and {@code tokenId} (the jti) are null for tokens issued before those claims were added.
+ */
+public record JwtPrincipal(String username, Long userId, String tokenId, Date issuedAt, Date expiration) {
+}
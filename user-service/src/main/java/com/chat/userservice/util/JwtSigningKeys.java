@@ -0,0 +1,248 @@
+package com.chat.userservice.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Asymmetric key material for {@link JwtUtil}: the current signing key pair plus any previous
+ * public keys that must keep verifying during a rotation, each identified by a key ID and
+ * rendered as a JWK for the published key set.
+ */
+public final class JwtSigningKeys {
+
+    /** Asymmetric algorithms supported by the pinned jjwt 0.11 (EdDSA needs 0.12+). */
+    public enum Algorithm {
+        RS256("RSA", "RSA"),
+        ES256("EC", "EC");
+
+        private final String keyAlgorithm;
+        private final String jwkType;
+
+        Algorithm(String keyAlgorithm, String jwkType) {
+            this.keyAlgorithm = keyAlgorithm;
+            this.jwkType = jwkType;
+        }
+
+        public static Algorithm parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Unsupported jwt.signing.algorithm: " + value
+                    + " (expected HS256, RS256 or ES256)");
+            }
+        }
+    }
+
+    private static final Pattern PEM_BLOCK =
+        Pattern.compile("-----BEGIN ([A-Z ]+)-----([^-]+)-----END \\1-----");
+
+    private final Algorithm algorithm;
+    private final PrivateKey signingKey;
+    private final String signingKeyId;
+    // Insertion order: current key first, so it leads the published set
+    private final Map<String, PublicKey> verificationKeys;
+    private final List<Map<String, Object>> jwks;
+
+    private JwtSigningKeys(Algorithm algorithm, KeyPair current, String configuredKeyId, List<PublicKey> previous) {
+        this.algorithm = algorithm;
+        this.signingKey = current.getPrivate();
+        this.signingKeyId = configuredKeyId == null || configuredKeyId.isBlank()
+            ? thumbprint(current.getPublic()) : configuredKeyId.trim();
+
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        keys.put(signingKeyId, current.getPublic());
+        for (PublicKey key : previous) {
+            keys.putIfAbsent(thumbprint(key), key);
+        }
+        this.verificationKeys = Collections.unmodifiableMap(keys);
+
+        List<Map<String, Object>> published = new ArrayList<>();
+        keys.forEach((kid, key) -> published.add(toJwk(kid, key)));
+        this.jwks = Collections.unmodifiableList(published);
+    }
+
+    /**
+     * Loads the configured keys. PEM values may be inline (with real or escaped newlines) or a
+     * {@code file:} path; previous public keys are any number of concatenated PEM blocks.
+     */
+    public static JwtSigningKeys load(Algorithm algorithm, String privateKeyPem, String publicKeyPem,
+                                      String keyId, String previousPublicKeysPem) {
+        try {
+            KeyFactory factory = KeyFactory.getInstance(algorithm.keyAlgorithm);
+            PrivateKey privateKey = factory.generatePrivate(new PKCS8EncodedKeySpec(onlyBlock(privateKeyPem, "PRIVATE KEY")));
+            PublicKey publicKey = factory.generatePublic(new X509EncodedKeySpec(onlyBlock(publicKeyPem, "PUBLIC KEY")));
+            List<PublicKey> previous = new ArrayList<>();
+            for (byte[] der : blocks(previousPublicKeysPem, "PUBLIC KEY")) {
+                previous.add(factory.generatePublic(new X509EncodedKeySpec(der)));
+            }
+            requireP256(publicKey);
+            previous.forEach(JwtSigningKeys::requireP256);
+            return new JwtSigningKeys(algorithm, new KeyPair(publicKey, privateKey), keyId, previous);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid " + algorithm + " key material: " + e.getMessage(), e);
+        }
+    }
+
+    /** A throwaway key pair for local runs; tokens do not survive a restart or verify on other replicas. */
+    public static JwtSigningKeys generate(Algorithm algorithm, String keyId) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm.keyAlgorithm);
+            if (algorithm == Algorithm.RS256) {
+                generator.initialize(2048);
+            } else {
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+            }
+            return new JwtSigningKeys(algorithm, generator.generateKeyPair(), keyId, List.of());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate " + algorithm + " key pair", e);
+        }
+    }
+
+    public Algorithm algorithm() {
+        return algorithm;
+    }
+
+    public PrivateKey signingKey() {
+        return signingKey;
+    }
+
+    public String signingKeyId() {
+        return signingKeyId;
+    }
+
+    /** Public key for a token's {@code kid}, or null if it is not (or no longer) trusted. */
+    public PublicKey verificationKey(String kid) {
+        return kid == null ? null : verificationKeys.get(kid);
+    }
+
+    /** The public keys as JWK objects, current key first. */
+    public List<Map<String, Object>> jwks() {
+        return jwks;
+    }
+
+    /** RFC 7638 JWK thumbprint (SHA-256, base64url), used as the default key ID. */
+    static String thumbprint(PublicKey key) {
+        // Required members only, in lexicographic order, no whitespace
+        String canonical;
+        if (key instanceof RSAPublicKey rsa) {
+            canonical = "{\"e\":\"" + base64Url(rsa.getPublicExponent()) + "\",\"kty\":\"RSA\",\"n\":\""
+                + base64Url(rsa.getModulus()) + "\"}";
+        } else if (key instanceof ECPublicKey ec) {
+            canonical = "{\"crv\":\"P-256\",\"kty\":\"EC\",\"x\":\"" + coordinate(ec.getW().getAffineX())
+                + "\",\"y\":\"" + coordinate(ec.getW().getAffineY()) + "\"}";
+        } else {
+            throw new IllegalStateException("Unsupported public key type: " + key.getAlgorithm());
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Map<String, Object> toJwk(String kid, PublicKey key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", algorithm.jwkType);
+        jwk.put("use", "sig");
+        jwk.put("alg", algorithm.name());
+        jwk.put("kid", kid);
+        if (key instanceof RSAPublicKey rsa) {
+            jwk.put("n", base64Url(rsa.getModulus()));
+            jwk.put("e", base64Url(rsa.getPublicExponent()));
+        } else if (key instanceof ECPublicKey ec) {
+            jwk.put("crv", "P-256");
+            jwk.put("x", coordinate(ec.getW().getAffineX()));
+            jwk.put("y", coordinate(ec.getW().getAffineY()));
+        }
+        return jwk;
+    }
+
+    /** Unsigned big-endian base64url, as JWK requires (no sign byte). */
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /** P-256 coordinates are always 32 bytes, left-padded. */
+    private static String coordinate(BigInteger value) {
+        byte[] raw = value.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(raw.length, 32);
+        System.arraycopy(raw, raw.length - length, fixed, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+
+    /** ES256 is defined on P-256 only; other curves would publish a wrong JWK. */
+    private static void requireP256(PublicKey key) {
+        if (key instanceof ECPublicKey ec && ec.getParams().getCurve().getField().getFieldSize() != 256) {
+            throw new IllegalStateException("ES256 requires a P-256 key, got a "
+                + ec.getParams().getCurve().getField().getFieldSize() + "-bit curve");
+        }
+    }
+
+    private static byte[] onlyBlock(String pem, String type) {
+        List<byte[]> blocks = blocks(pem, type);
+        if (blocks.size() != 1) {
+            throw new IllegalStateException("Expected exactly one PEM '" + type + "' block, found " + blocks.size());
+        }
+        return blocks.get(0);
+    }
+
+    private static List<byte[]> blocks(String pem, String type) {
+        List<byte[]> out = new ArrayList<>();
+        if (pem == null || pem.isBlank()) {
+            return out;
+        }
+        Matcher matcher = PEM_BLOCK.matcher(resolve(pem).replace("\\n", "\n"));
+        while (matcher.find()) {
+            if (!matcher.group(1).equals(type)) {
+                throw new IllegalStateException("Expected PEM '" + type + "' but found '" + matcher.group(1)
+                    + "' (private keys must be PKCS#8)");
+            }
+            out.add(Base64.getMimeDecoder().decode(matcher.group(2)));
+        }
+        return out;
+    }
+
+    private static String resolve(String value) {
+        String trimmed = value.trim();
+        if (!trimmed.startsWith("file:")) {
+            return trimmed;
+        }
+        try {
+            return Files.readString(Path.of(trimmed.substring("file:".length())));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read JWT key file " + trimmed, e);
+        }
+    }
+}
@@ -1,57 +1,183 @@
 package com.chat.userservice.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.security.Key;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Issues and verifies access tokens. HS256 with the shared secret is the default; with
+ * {@code jwt.signing.algorithm} set to RS256 or ES256 tokens are signed with a private key,
+ * carry a {@code kid} header, and downstream services can verify them locally against the
+ * public keys published at /.well-known/jwks.json.
+ */
 @Component
 public final class JwtUtil {
+    private static final Logger log = LoggerFactory.getLogger(JwtUtil.class);
+
+    public static final String USER_ID_CLAIM = "userId";
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    @Value("${jwt.signing.algorithm:HS256}")
+    private String algorithm = "HS256";
+
+    @Value("${jwt.signing.key-id:}")
+    private String keyId = "";
+
+    @Value("${jwt.signing.private-key:}")
+    private String privateKey = "";
+
+    @Value("${jwt.signing.public-key:}")
+    private String publicKey = "";
+
+    @Value("${jwt.signing.previous-public-keys:}")
+    private String previousPublicKeys = "";
+
+    @Value("${jwt.signing.accept-hmac:true}")
+    private boolean acceptHmac = true;
+
+    // All immutable and thread-safe, so they are built once and shared by all requests
+    private Key hmacKey;
+    private JwtSigningKeys asymmetricKeys;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        this.hmacKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        if ("HS256".equalsIgnoreCase(algorithm.trim())) {
+            this.asymmetricKeys = null;
+            this.parser = Jwts.parserBuilder()
+                    .setSigningKey(hmacKey)
+                    .build();
+            return;
+        }
+
+        JwtSigningKeys.Algorithm asymmetric = JwtSigningKeys.Algorithm.parse(algorithm);
+        if (privateKey.isBlank()) {
+            log.warn("jwt.signing.algorithm={} but no jwt.signing.private-key is set; using an ephemeral key pair. "
+                + "Tokens will not survive a restart or verify on other replicas.", asymmetric);
+            this.asymmetricKeys = JwtSigningKeys.generate(asymmetric, keyId);
+        } else {
+            this.asymmetricKeys = JwtSigningKeys.load(asymmetric, privateKey, publicKey, keyId, previousPublicKeys);
+        }
+        log.info("Signing JWTs with {} key {} ({} published key(s), HMAC tokens {})", asymmetric,
+            asymmetricKeys.signingKeyId(), asymmetricKeys.jwks().size(), acceptHmac ? "still accepted" : "rejected");
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new KeyResolver())
+                .build();
     }
 
     public String generateToken(final String username) {
-        return Jwts.builder()
+        return generateToken(username, null);
+    }
+
+    /** Token for {@code username}; a non-null {@code userId} is embedded so verifiers need no lookup. */
+    public String generateToken(final String username, final Long userId) {
+        JwtBuilder builder = Jwts.builder()
+                .setId(newTokenId())
                 .setSubject(username)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .setExpiration(new Date(System.currentTimeMillis() + expiration));
+        if (userId != null) {
+            builder.claim(USER_ID_CLAIM, userId);
+        }
+        if (asymmetricKeys == null) {
+            return builder.signWith(hmacKey).compact();
+        }
+        return builder
+                .setHeaderParam(JwsHeader.KEY_ID, asymmetricKeys.signingKeyId())
+                .signWith(asymmetricKeys.signingKey())
                 .compact();
     }
 
-    public String extractUsername(final String token) {
-        return extractClaims(token).getSubject();
+    /** Public signing keys as JWK objects; empty in HS256 mode, where there is nothing to publish. */
+    public List<Map<String, Object>> publicJwks() {
+        return asymmetricKeys == null ? List.of() : asymmetricKeys.jwks();
     }
 
-    public boolean isTokenValid(final String token) {
+    /**
+     * Verifies the token once and returns its principal, or empty if the token is
+     * missing, malformed, expired or carries a bad signature.
+     */
+    public Optional<JwtPrincipal> parse(final String token) {
         if (token == null || token.trim().isEmpty()) {
-            return false;
+            return Optional.empty();
         }
         try {
-            extractClaims(token);
-            return true;
-        } catch (JwtException e) {
-            return false;
+            Claims claims = extractClaims(token);
+            return Optional.of(new JwtPrincipal(claims.getSubject(), claims.get(USER_ID_CLAIM, Long.class),
+                claims.getId(), claims.getIssuedAt(), claims.getExpiration()));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
         }
     }
 
+    public String extractUsername(final String token) {
+        return extractClaims(token).getSubject();
+    }
+
+    public Date extractExpiration(final String token) {
+        return extractClaims(token).getExpiration();
+    }
+
+    public boolean isTokenValid(final String token) {
+        return parse(token).isPresent();
+    }
+
+    /** 64 random bits, base64url (11 chars): unique enough per expiry window and cheap to denylist. */
+    private static String newTokenId() {
+        byte[] bytes = ByteBuffer.allocate(Long.BYTES).putLong(ThreadLocalRandom.current().nextLong()).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
     private Claims extractClaims(final String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Picks the verification key from the token header. jjwt still checks that the key fits
+     * the declared algorithm, so a token cannot switch an RSA/EC kid over to HMAC.
+     */
+    private final class KeyResolver extends SigningKeyResolverAdapter {
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            String alg = header.getAlgorithm();
+            if (alg != null && alg.startsWith("HS")) {
+                // Tokens issued before the switch stay valid until they expire
+                if (!acceptHmac) {
+                    throw new UnsupportedJwtException("HMAC-signed tokens are no longer accepted");
+                }
+                return hmacKey;
+            }
+            Key key = asymmetricKeys.verificationKey(header.getKeyId());
+            if (key == null) {
+                throw new UnsupportedJwtException("Unknown signing key id: " + header.getKeyId());
+            }
+            return key;
+        }
     }
 }
@@ -0,0 +1,44 @@
+package com.chat.userservice.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Deferring in-memory side effects of a database write until the surrounding transaction
+ * commits, so a rollback never leaves counters, versions or caches ahead of the table.
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /** Runs {@code update} after the current transaction commits, or right away outside one. */
+    public static void afterCommit(Runnable update) {
+        if (!registerAfterCommit(update)) {
+            update.run();
+        }
+    }
+
+    /**
+     * Runs {@code update} now and, inside a transaction, again after it commits: for cache
+     * invalidation, where a reader that saw the old row before the commit could re-fill the
+     * entry between the two runs.
+     */
+    public static void nowAndAfterCommit(Runnable update) {
+        update.run();
+        registerAfterCommit(update);
+    }
+
+    private static boolean registerAfterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+        return true;
+    }
+}
@@ -1,13 +1,38 @@
 package com.chat.userservice;
 
+import com.chat.userservice.dto.TokenValidationResponse;
+import com.chat.userservice.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 @SpringBootTest
 @ActiveProfiles("test")
 class UserServiceApplicationTests {
 
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Test
     void contextLoads() {
         // Test that Spring context loads successfully
@@ -18,4 +43,34 @@ class UserServiceApplicationTests {
         // Simple test to verify application can start
         assert true;
     }
+
+    @Test
+    void statementsAreTimedThroughTheDataSourceProxy() {
+        assertInstanceOf(ProxyDataSource.class, dataSource);
+
+        userRepository.existsByUsername("nobody");
+
+        assertFalse(meterRegistry.find("db_query_duration_seconds").tag("table", "users").timers().isEmpty());
+    }
+
+    @Test
+    void poolMetricsAreBoundThroughTheProxy() {
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "user-service-pool").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.acquire").tag("pool", "user-service-pool").timer());
+    }
+
+    @Test
+    void sharedObjectMapperUsesBlackbird() throws Exception {
+        assertTrue(objectMapper.getRegisteredModuleIds().contains(new BlackbirdModule().getTypeId()));
+
+        assertEquals("{\"valid\":true,\"username\":\"alice\",\"userId\":1}",
+            objectMapper.writeValueAsString(TokenValidationResponse.valid("alice", 1L)));
+        assertEquals("{\"valid\":false}", objectMapper.writeValueAsString(TokenValidationResponse.INVALID));
+    }
+
+    @Test
+    void sharedObjectMapperUsesTheTunedFactory() {
+        assertFalse(objectMapper.getFactory().isEnabled(JsonFactory.Feature.INTERN_FIELD_NAMES));
+        assertFalse(objectMapper.getFactory().isEnabled(StreamReadFeature.INCLUDE_SOURCE_IN_LOCATION));
+    }
 }
@@ -0,0 +1,104 @@
+package com.chat.userservice.benchmark;
+
+import com.chat.userservice.UserServiceApplication;
+import com.chat.userservice.entity.User;
+import com.chat.userservice.repository.UserRepository;
+import com.chat.userservice.service.UserBulkService;
+import com.chat.userservice.service.UserExistenceFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to create {@code rows} users on H2: the bulk import path (sequence ids, JDBC batches,
+ * chunked transactions) against one repository save per row. Rows/sec = rows / score.
+ * Passwords are pre-hashed so the numbers measure persistence, not BCrypt.
+ * The per-row path is slow at 1M; narrow with e.g. -Djmh.args="BulkImport -p rows=10000".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class BulkImportBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"bulk", "perRow"})
+    public String path;
+
+    private ConfigurableApplicationContext context;
+    private UserBulkService userBulkService;
+    private UserRepository userRepository;
+    private JdbcTemplate jdbcTemplate;
+    private List<UserBulkService.NewUser> users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(UserServiceApplication.class)
+            .web(WebApplicationType.NONE)
+            .profiles("test")
+            .properties(
+                "access-log.enabled=false",
+                "logging.level.root=WARN",
+                "logging.level.org.springframework.security=WARN")
+            .run();
+        userBulkService = context.getBean(UserBulkService.class);
+        userRepository = context.getBean(UserRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        String hash = new BCryptPasswordEncoder(4).encode("secret");
+        users = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            users.add(new UserBulkService.NewUser("bench" + i, "bench" + i + "@example.com", null, hash));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTable() {
+        jdbcTemplate.execute("DELETE FROM users");
+        // As after a real cleanup: otherwise every name is a filter hit and costs an IN query
+        context.getBean(UserExistenceFilter.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int createUsers() {
+        if ("bulk".equals(path)) {
+            return userBulkService.importUsers(users).created();
+        }
+        for (UserBulkService.NewUser user : users) {
+            userRepository.save(new User(user.username(), user.email(), user.passwordHash()));
+        }
+        return users.size();
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[] {BulkImportBenchmark.class.getSimpleName()});
+    }
+}
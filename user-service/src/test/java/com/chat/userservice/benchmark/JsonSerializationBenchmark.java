@@ -0,0 +1,202 @@
+package com.chat.userservice.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.chat.userservice.config.JacksonConfig;
+import com.chat.userservice.controller.UserController;
+import com.chat.userservice.dto.DashboardResponse;
+import com.chat.userservice.entity.User;
+import com.chat.userservice.metrics.MetricsService;
+import com.chat.userservice.repository.UserCredentials;
+import com.chat.userservice.repository.UserSummary;
+import com.chat.userservice.service.TokenRevocationService;
+import com.chat.userservice.service.TokenValidationCache;
+import com.chat.userservice.service.UserService;
+import com.chat.userservice.service.UserTableVersion;
+import com.chat.userservice.util.JwtPrincipal;
+import com.chat.userservice.util.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * JSON cost per endpoint: the pre-DTO HashMap trees against the typed records, each on a plain
+ * Boot-style ObjectMapper ("default") and on the one tuned by {@link JacksonConfig} ("tuned").
+ * The mvc* benchmarks run UserController through standalone MockMvc with mocked services, so
+ * what remains is argument binding, the controller and message conversion.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args=JsonSerialization
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"default", "tuned"})
+    public String mapper;
+
+    @Param({"1000"})
+    public int users;
+
+    private ObjectMapper objectMapper;
+    private List<User> entities;
+    private MockMvc mockMvc;
+    private String batchBody;
+
+    @Setup
+    public void setUp() throws Exception {
+        // No Spring Boot logging setup here, so Logback would default to DEBUG and log every request
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if ("tuned".equals(mapper)) {
+            new JacksonConfig().jacksonTuning().customize(builder);
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        objectMapper = builder.build();
+
+        entities = new ArrayList<>(users);
+        List<UserSummary> summaries = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            User user = new User("user" + i, "user" + i + "@example.com", "hash");
+            user.setId((long) i + 1);
+            user.setActive(i % 3 == 0);
+            user.setLastSeen(LocalDateTime.now());
+            entities.add(user);
+            summaries.add(new UserSummary(user.getId(), user.getUsername(), user.getEmail(), user.isActive(), user.getLastSeen()));
+        }
+
+        UserService userService = stub(UserService.class);
+        when(userService.getAllUsers()).thenReturn(entities);
+        when(userService.getUserPage(anyLong(), anyInt())).thenReturn(summaries.subList(0, Math.min(100, users)));
+        when(userService.getTotalUsers()).thenReturn((long) users);
+        when(userService.getActiveUsers()).thenReturn((long) users / 3);
+        when(userService.authenticateUser(anyString(), anyString()))
+            .thenReturn(Optional.of(new UserCredentials(1L, "user0", "hash")));
+        Map<String, Long> ids = new HashMap<>();
+        summaries.forEach(summary -> ids.put(summary.username(), summary.id()));
+        when(userService.getUserIdsByUsernames(anyCollection())).thenReturn(ids);
+
+        JwtUtil jwtUtil = stub(JwtUtil.class);
+        when(jwtUtil.generateToken(anyString(), any())).thenReturn("header.payload.signature");
+        Date expiration = new Date(System.currentTimeMillis() + 3_600_000);
+        StringBuilder tokens = new StringBuilder("{\"tokens\":[");
+        for (int i = 0; i < 100; i++) {
+            String token = "token-" + i;
+            when(jwtUtil.parse(token)).thenReturn(Optional.of(
+                new JwtPrincipal("user" + i, (long) i + 1, null, new Date(), expiration)));
+            tokens.append(i == 0 ? "" : ",").append('"').append(token).append('"');
+        }
+        batchBody = tokens.append("]}").toString();
+
+        TokenValidationCache cache = new TokenValidationCache();
+        ReflectionTestUtils.setField(cache, "enabled", false);
+
+        UserController controller = new UserController();
+        ReflectionTestUtils.setField(controller, "userService", userService);
+        ReflectionTestUtils.setField(controller, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(controller, "metricsService", stub(MetricsService.class));
+        ReflectionTestUtils.setField(controller, "tokenValidationCache", cache);
+        ReflectionTestUtils.setField(controller, "tokenRevocationService", stub(TokenRevocationService.class));
+        ReflectionTestUtils.setField(controller, "userTableVersion", stub(UserTableVersion.class));
+        ReflectionTestUtils.setField(controller, "objectMapper", objectMapper);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+            .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+            .build();
+    }
+
+    // Stub-only mocks do not record invocations, so heap stays flat over millions of calls
+    private static <T> T stub(Class<T> type) {
+        return Mockito.mock(type, Mockito.withSettings().stubOnly());
+    }
+
+    /** The unpaged dashboard as the controller built it before the DTOs: one HashMap per user. */
+    @Benchmark
+    public byte[] dashboardAsMaps() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        response.put("totalUsers", (long) users);
+        response.put("activeUsers", (long) users / 3);
+        response.put("users", entities.stream().map(user -> {
+            Map<String, Object> userMap = new HashMap<>();
+            userMap.put("id", user.getId());
+            userMap.put("username", user.getUsername());
+            userMap.put("email", user.getEmail());
+            userMap.put("active", user.isActive());
+            userMap.put("lastSeen", user.getLastSeen());
+            return userMap;
+        }).toList());
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] dashboardAsRecords() throws Exception {
+        List<UserSummary> summaries = entities.stream()
+            .map(user -> new UserSummary(user.getId(), user.getUsername(), user.getEmail(), user.isActive(), user.getLastSeen()))
+            .toList();
+        return objectMapper.writeValueAsBytes(new DashboardResponse(users, users / 3, summaries));
+    }
+
+    @Benchmark
+    public int mvcDashboard() throws Exception {
+        return mockMvc.perform(get("/api/users/dashboard")).andReturn().getResponse().getContentLength();
+    }
+
+    @Benchmark
+    public int mvcDashboardPage() throws Exception {
+        return mockMvc.perform(get("/api/users/dashboard").param("limit", "100")).andReturn().getResponse().getContentLength();
+    }
+
+    @Benchmark
+    public int mvcValidateBatch() throws Exception {
+        return mockMvc.perform(post("/api/users/validate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batchBody))
+            .andReturn().getResponse().getContentLength();
+    }
+
+    @Benchmark
+    public int mvcLogin() throws Exception {
+        return mockMvc.perform(post("/api/users/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"user0\",\"password\":\"secret\"}"))
+            .andReturn().getResponse().getContentLength();
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[] {JsonSerializationBenchmark.class.getSimpleName()});
+    }
+}
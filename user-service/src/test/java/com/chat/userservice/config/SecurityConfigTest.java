@@ -1,15 +1,84 @@
 package com.chat.userservice.config;
 
+import com.chat.userservice.util.JwtUtil;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
 
-@SpringBootTest
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"bulk-import.enabled=true", "bulk-delete.enabled=true", "security.admin-usernames=ops"})
+@AutoConfigureMockMvc
 @ActiveProfiles("test")
 public class SecurityConfigTest {
 
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
     @Test
     public void contextLoads() {
         // Test that security configuration loads without errors
     }
+
+    @Test
+    public void bulkImport_WithoutToken_IsRejected() throws Exception {
+        mockMvc.perform(post("/api/users/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"users\":[{\"username\":\"planted\",\"email\":\"p@x.com\",\"passwordHash\":\"$2a$10$x\"}]}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void bulkImport_NonAdminToken_IsRejected() throws Exception {
+        mockMvc.perform(post("/api/users/bulk")
+                .header("Authorization", "Bearer " + jwtUtil.generateToken("someone", 1L))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void bulkImport_AdminToken_ReachesTheController() throws Exception {
+        // Past security the empty body fails validation instead
+        mockMvc.perform(post("/api/users/bulk")
+                .header("Authorization", "Bearer " + jwtUtil.generateToken("ops", 2L))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void bulkDelete_WithoutToken_IsRejected() throws Exception {
+        mockMvc.perform(post("/api/users/bulk/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"prefix\":\"frank\"}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void bulkDelete_NonAdminToken_IsRejected() throws Exception {
+        mockMvc.perform(post("/api/users/bulk/delete")
+                .header("Authorization", "Bearer " + jwtUtil.generateToken("someone", 1L))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"prefix\":\"frank\"}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void validate_WithUnverifiableToken_IsAnsweredByTheController() throws Exception {
+        mockMvc.perform(get("/api/users/validate")
+                .header("Authorization", "Bearer not-a-jwt"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valid").value(false));
+    }
 }
@@ -1,30 +1,90 @@
 package com.chat.userservice.controller;
 
+import com.chat.userservice.metrics.ConnectionPoolHealthIndicator;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@ActiveProfiles("test")
 class HealthMetricsControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ConnectionPoolHealthIndicator connectionPoolHealthIndicator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void healthEndpointWorks() throws Exception {
-        mockMvc.perform(get("/health")).andExpect(status().isOk());
+        mockMvc.perform(get("/health"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("OK"))
+            .andExpect(jsonPath("$.dependencies.database.status").value("up"));
     }
 
     @Test
     void metricsEndpointWorks() throws Exception {
         mockMvc.perform(get("/metrics")).andExpect(status().isOk());
     }
-}
 
+    @Test
+    void metricsReportDatabaseFromPoolState() throws Exception {
+        mockMvc.perform(get("/metrics"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.dependencies.database.status").value("connected"))
+            .andExpect(jsonPath("$.dependencies.database.pool.max").value(20))
+            .andExpect(jsonPath("$.dependencies.database.pool.saturated").value(false));
+    }
 
+    @Test
+    void poolHealthIsUpWithoutBorrowingAConnection() {
+        Health health = connectionPoolHealthIndicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(20, health.getDetails().get("max"));
+        assertEquals(0, health.getDetails().get("pending"));
+    }
+
+    @Test
+    void requestsAreRecordedUnderTheRouteTemplate() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            mockMvc.perform(delete("/api/users/template_user_" + i));
+        }
+        // Permitted by security but no handler for POST, so no pattern is matched
+        mockMvc.perform(post("/health"));
+
+        assertTrue(meterRegistry.get("http_requests_total")
+            .tag("method", "DELETE").tag("route", "/api/users/{username}").counter().count() >= 50);
+        assertTrue(meterRegistry.find("http_requests_total").counters().stream()
+            .noneMatch(counter -> String.valueOf(counter.getId().getTag("route")).contains("template_user_")));
+        assertNotNull(meterRegistry.find("http_requests_total").tag("route", "unmatched").counter());
+    }
+
+    @Test
+    void securityRejectionsShareOneRoute() throws Exception {
+        // No token, so Spring Security answers before any handler is matched
+        mockMvc.perform(get("/api/users/someone")).andExpect(status().isForbidden());
+
+        assertNotNull(meterRegistry.find("http_requests_total")
+            .tag("method", "GET").tag("route", "security-rejected").counter());
+        assertNull(meterRegistry.find("http_requests_total").tag("method", "GET").tag("route", "unmatched").counter());
+    }
+}
@@ -0,0 +1,78 @@
+package com.chat.userservice.controller;
+
+import com.chat.userservice.config.TestSecurityConfig;
+import com.chat.userservice.logging.AccessLogWriter;
+import com.chat.userservice.metrics.MetricsService;
+import com.chat.userservice.service.TokenRevocationService;
+import com.chat.userservice.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(JwksController.class)
+@Import(TestSecurityConfig.class)
+class JwksControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwksController jwksController;
+
+    @MockBean
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private MetricsService metricsService;
+
+    @MockBean
+    private AccessLogWriter accessLogWriter;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    void resetPublishedKeys() {
+        ReflectionTestUtils.setField(jwksController, "published", null);
+    }
+
+    @Test
+    void jwks_IsCachedAndRevalidatedByEtag() throws Exception {
+        when(jwtUtil.publicJwks()).thenReturn(List.of(Map.of("kty", "RSA", "kid", "key-1", "n", "abc", "e", "AQAB")));
+
+        String etag = mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.keys[0].kid").value("key-1"))
+                .andExpect(header().string("Cache-Control", containsString("max-age=300")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/.well-known/jwks.json").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // Serialized once, not per request
+        verify(jwtUtil, times(1)).publicJwks();
+    }
+
+    @Test
+    void jwks_HmacModePublishesEmptySet() throws Exception {
+        when(jwtUtil.publicJwks()).thenReturn(List.of());
+
+        mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"keys\":[]}"));
+    }
+}
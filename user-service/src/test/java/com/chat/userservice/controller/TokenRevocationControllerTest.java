@@ -0,0 +1,71 @@
+package com.chat.userservice.controller;
+
+import com.chat.userservice.config.TestSecurityConfig;
+import com.chat.userservice.entity.TokenRevocation;
+import com.chat.userservice.logging.AccessLogWriter;
+import com.chat.userservice.metrics.MetricsService;
+import com.chat.userservice.service.TokenRevocationService;
+import com.chat.userservice.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TokenRevocationController.class)
+@Import(TestSecurityConfig.class)
+class TokenRevocationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    @MockBean
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private MetricsService metricsService;
+
+    @MockBean
+    private AccessLogWriter accessLogWriter;
+
+    @Test
+    void deltas_ReturnsEntriesAndNextVersion() throws Exception {
+        TokenRevocation token = new TokenRevocation(TokenRevocation.Kind.TOKEN, "alice", "jti-1", 100, 200, 0);
+        token.setId(7L);
+        TokenRevocation user = new TokenRevocation(TokenRevocation.Kind.USER, "bob", null, 150, 250, 0);
+        user.setId(8L);
+        when(tokenRevocationService.deltas(6, 1000))
+            .thenReturn(new TokenRevocationService.Deltas(8, false, List.of(token, user)));
+
+        mockMvc.perform(get("/api/users/revocations").param("since", "6"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(8))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andExpect(jsonPath("$.revocations[0].kind").value("token"))
+                .andExpect(jsonPath("$.revocations[0].tokenId").value("jti-1"))
+                .andExpect(jsonPath("$.revocations[1].kind").value("user"))
+                .andExpect(jsonPath("$.revocations[1].issuedBefore").value(150));
+    }
+
+    @Test
+    void deltas_ClampsLimitAndRejectsNegativeSince() throws Exception {
+        when(tokenRevocationService.deltas(0, 1000)).thenReturn(new TokenRevocationService.Deltas(0, false, List.of()));
+
+        mockMvc.perform(get("/api/users/revocations").param("limit", "50000"))
+                .andExpect(status().isOk());
+        verify(tokenRevocationService).deltas(0, 1000);
+
+        mockMvc.perform(get("/api/users/revocations").param("since", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+}
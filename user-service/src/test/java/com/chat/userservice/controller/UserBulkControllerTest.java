@@ -0,0 +1,148 @@
+package com.chat.userservice.controller;
+
+import com.chat.userservice.config.TestSecurityConfig;
+import com.chat.userservice.logging.AccessLogWriter;
+import com.chat.userservice.metrics.MetricsService;
+import com.chat.userservice.service.PasswordHashingRejectedException;
+import com.chat.userservice.service.TokenRevocationService;
+import com.chat.userservice.service.UserBulkService;
+import com.chat.userservice.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = UserBulkController.class, properties = {"bulk-import.enabled=true", "bulk-delete.enabled=true"})
+@Import(TestSecurityConfig.class)
+class UserBulkControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserBulkService userBulkService;
+
+    @MockBean
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private MetricsService metricsService;
+
+    @MockBean
+    private AccessLogWriter accessLogWriter;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    @Test
+    void bulkImport_ReturnsCountsAndTiming() throws Exception {
+        when(userBulkService.importUsers(anyList())).thenReturn(new UserBulkService.ImportResult(
+            2, 1, List.of(new UserBulkService.Rejection("bob", "Username already exists")), 5));
+
+        mockMvc.perform(post("/api/users/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"users\":[{\"username\":\"alice\",\"email\":\"a@x.com\",\"password\":\"p\"},"
+                    + "{\"username\":\"bob\",\"email\":\"b@x.com\",\"password\":\"p\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(2))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected[0].username").value("bob"))
+                .andExpect(jsonPath("$.rowsPerSecond").value(200));
+
+        verify(userBulkService).importUsers(argThat(users -> users.size() == 2
+            && users.get(0).username().equals("alice") && users.get(0).password().equals("p")));
+    }
+
+    @Test
+    void bulkImport_MissingUsers_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/users/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void bulkImport_MalformedHashOrMissingEmail_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/users/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"users\":[{\"username\":\"alice\",\"email\":\"a@x.com\",\"passwordHash\":\"not-a-hash\"}]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/users/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"users\":[{\"username\":\"alice\",\"password\":\"p\"}]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userBulkService);
+    }
+
+    @Test
+    void bulkImport_HashingSaturated_ReturnsServiceUnavailable() throws Exception {
+        when(userBulkService.importUsers(anyList()))
+            .thenThrow(new PasswordHashingRejectedException("Password hashing capacity exhausted"));
+
+        mockMvc.perform(post("/api/users/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"users\":[{\"username\":\"alice\",\"email\":\"a@x.com\",\"password\":\"p\"}]}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void bulkDelete_ByUsernames_ReturnsCounts() throws Exception {
+        when(userBulkService.deleteUsers(anyList())).thenReturn(new UserBulkService.DeleteResult(3, 2, 1, 1, 4));
+
+        mockMvc.perform(post("/api/users/bulk/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"usernames\":[\"a\",\"b\",\"c\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2))
+                .andExpect(jsonPath("$.notFound").value(1))
+                .andExpect(jsonPath("$.activeDeleted").value(1))
+                .andExpect(jsonPath("$.chunks").value(1));
+
+        verify(userBulkService).deleteUsers(List.of("a", "b", "c"));
+    }
+
+    @Test
+    void bulkDelete_ByPrefix_DelegatesToPrefixDelete() throws Exception {
+        when(userBulkService.deleteUsersByPrefix("loadtest_")).thenReturn(new UserBulkService.DeleteResult(50, 50, 0, 1, 3));
+
+        mockMvc.perform(post("/api/users/bulk/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"prefix\":\"loadtest_\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(50));
+    }
+
+    @Test
+    void bulkDelete_ShortPrefixOrBothSelectors_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/users/bulk/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"prefix\":\"a\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/users/bulk/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"prefix\":\"loadtest_\",\"usernames\":[\"a\"]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/users/bulk/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/users/bulk/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"usernames\":[\"a\",\"\"]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userBulkService);
+    }
+}
@@ -2,7 +2,15 @@ package com.chat.userservice.controller;
 
 import com.chat.userservice.config.TestSecurityConfig;
 import com.chat.userservice.entity.User;
+import com.chat.userservice.logging.AccessLogWriter;
+import com.chat.userservice.repository.UserCredentials;
+import com.chat.userservice.repository.UserSummary;
+import com.chat.userservice.service.PasswordHashingRejectedException;
+import com.chat.userservice.service.TokenRevocationService;
+import com.chat.userservice.service.TokenValidationCache;
 import com.chat.userservice.service.UserService;
+import com.chat.userservice.service.UserTableVersion;
+import com.chat.userservice.util.JwtPrincipal;
 import com.chat.userservice.util.JwtUtil;
 import com.chat.userservice.metrics.MetricsService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -14,10 +22,12 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 import java.util.*;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -39,6 +49,18 @@ class UserControllerTest {
     @MockBean
     private MetricsService metricsService;
 
+    @MockBean
+    private TokenValidationCache tokenValidationCache;
+
+    @MockBean
+    private AccessLogWriter accessLogWriter;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    @MockBean
+    private UserTableVersion userTableVersion;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -53,6 +75,12 @@ class UserControllerTest {
         testUser.setPassword("hashedpassword");
         testUser.setActive(true);
         testUser.setCreatedAt(LocalDateTime.now());
+        when(userTableVersion.isEnabled()).thenReturn(true);
+        when(userTableVersion.etag()).thenReturn("W/\"abc-7\"");
+    }
+
+    private static JwtPrincipal principal(String username) {
+        return new JwtPrincipal(username, null, null, new Date(), new Date(System.currentTimeMillis() + 3_600_000));
     }
 
     // Registration Tests
@@ -133,8 +161,9 @@ class UserControllerTest {
             "username", "testuser",
             "password", "password123"
         );
-        when(userService.authenticateUser(anyString(), anyString())).thenReturn(Optional.of(testUser));
-        when(jwtUtil.generateToken(anyString())).thenReturn("mock-jwt-token");
+        when(userService.authenticateUser(anyString(), anyString()))
+                .thenReturn(Optional.of(new UserCredentials(1L, "testuser", "hashedpassword")));
+        when(jwtUtil.generateToken("testuser", 1L)).thenReturn("mock-jwt-token");
 
         // Act & Assert
         mockMvc.perform(post("/api/users/login")
@@ -163,6 +192,24 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.error").value("Invalid credentials"));
     }
 
+    @Test
+    void loginUser_HashingSaturated_ReturnsServiceUnavailable() throws Exception {
+        // Arrange
+        Map<String, String> request = Map.of(
+            "username", "testuser",
+            "password", "password123"
+        );
+        when(userService.authenticateUser(anyString(), anyString()))
+                .thenThrow(new PasswordHashingRejectedException("Password hashing capacity exhausted"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/users/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
     @Test
     void loginUser_EmptyCredentials_ReturnsBadRequest() throws Exception {
         // Arrange
@@ -193,13 +240,115 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.users").isArray());
     }
 
+    @Test
+    void getDashboard_WithLimit_ReturnsKeysetPage() throws Exception {
+        // Arrange
+        List<UserSummary> page = List.of(
+            new UserSummary(11L, "a", "a@example.com", true, null),
+            new UserSummary(12L, "b", "b@example.com", false, null));
+        when(userService.getUserPage(10L, 2)).thenReturn(page);
+        when(userService.getTotalUsers()).thenReturn(10L);
+        when(userService.getActiveUsers()).thenReturn(8L);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/dashboard").param("limit", "2").param("cursor", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(2))
+                .andExpect(jsonPath("$.users[0].username").value("a"))
+                .andExpect(jsonPath("$.users[0].password").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value(12));
+
+        verify(userService, never()).getAllUsers();
+    }
+
+    @Test
+    void getDashboard_Stream_WritesAllChunks() throws Exception {
+        // Arrange
+        when(userService.getTotalUsers()).thenReturn(2L);
+        when(userService.getActiveUsers()).thenReturn(1L);
+        when(userService.getUserPage(eq(0L), anyInt()))
+                .thenReturn(List.of(new UserSummary(1L, "a", "a@example.com", true, null)));
+        when(userService.getUserPage(eq(1L), anyInt())).thenReturn(List.of());
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/users/dashboard").param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalUsers").value(2))
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0].id").value(1));
+        verify(userService, never()).getAllUsers();
+    }
+
+    @Test
+    void getDashboard_TagsResponseWithTableVersion() throws Exception {
+        when(userService.getAllUsers()).thenReturn(List.of(testUser));
+
+        mockMvc.perform(get("/api/users/dashboard"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"abc-7\""))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    void getDashboard_MatchingEtag_ReturnsNotModifiedWithoutQuerying() throws Exception {
+        mockMvc.perform(get("/api/users/dashboard").header("If-None-Match", "W/\"abc-7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/users/dashboard").param("limit", "2").header("If-None-Match", "W/\"abc-7\""))
+                .andExpect(status().isNotModified());
+
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void getDashboard_StaleEtag_ReturnsFullResponse() throws Exception {
+        when(userService.getAllUsers()).thenReturn(List.of(testUser));
+
+        mockMvc.perform(get("/api/users/dashboard").header("If-None-Match", "W/\"abc-6\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"abc-7\""))
+                .andExpect(jsonPath("$.users[0].username").value("testuser"));
+    }
+
+    @Test
+    void getUser_ReturnsSummaryWithEtag() throws Exception {
+        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(testUser));
+
+        mockMvc.perform(get("/api/users/testuser"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"abc-7\""))
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.email").value("test@example.com"))
+                .andExpect(jsonPath("$.password").doesNotExist());
+    }
+
+    @Test
+    void getUser_MatchingEtag_ReturnsNotModifiedWithoutQuerying() throws Exception {
+        mockMvc.perform(get("/api/users/testuser").header("If-None-Match", "W/\"abc-7\""))
+                .andExpect(status().isNotModified());
+
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void getUser_Unknown_ReturnsNotFound() throws Exception {
+        when(userService.getUserByUsername("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/users/missing"))
+                .andExpect(status().isNotFound());
+    }
+
     // Token Validation Tests
     @Test
     void validateToken_ValidToken_ReturnsValid() throws Exception {
         // Arrange
-        when(jwtUtil.isTokenValid(anyString())).thenReturn(true);
-        when(jwtUtil.extractUsername(anyString())).thenReturn("testuser");
-        when(userService.getUserByUsername(anyString())).thenReturn(Optional.of(testUser));
+        when(jwtUtil.parse(anyString())).thenReturn(Optional.of(principal("testuser")));
+        when(userService.getUserIdByUsername(anyString())).thenReturn(Optional.of(1L));
 
         // Act & Assert
         mockMvc.perform(get("/api/users/validate")
@@ -209,10 +358,132 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.username").value("testuser"));
     }
 
+    @Test
+    void validateToken_RevokedToken_ReturnsInvalid() throws Exception {
+        JwtPrincipal revoked = principal("testuser");
+        when(jwtUtil.parse(anyString())).thenReturn(Optional.of(revoked));
+        when(tokenRevocationService.isRevoked(revoked)).thenReturn(true);
+
+        mockMvc.perform(get("/api/users/validate")
+                .header("Authorization", "Bearer revoked-token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valid").value(false));
+        verify(userService, never()).getUserIdByUsername(anyString());
+    }
+
+    /** Routes the mocked cache to a real one, so stamps and puts behave as in production. */
+    private TokenValidationCache realValidationCache() {
+        TokenValidationCache real = new TokenValidationCache();
+        when(tokenValidationCache.get(any())).thenAnswer(inv -> real.get(inv.getArgument(0)));
+        when(tokenValidationCache.stamp(any())).thenAnswer(inv -> real.stamp(inv.getArgument(0)));
+        doAnswer(inv -> {
+            real.put(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2), inv.getArgument(3));
+            return null;
+        }).when(tokenValidationCache).put(any(), any(), any(), anyLong());
+        return real;
+    }
+
+    @Test
+    void validateToken_RevokedRightAfterCheck_IsNotCached() throws Exception {
+        TokenValidationCache real = realValidationCache();
+        JwtPrincipal current = principal("testuser");
+        when(jwtUtil.parse("racing-token")).thenReturn(Optional.of(current));
+        when(userService.getUserIdByUsername("testuser")).thenReturn(Optional.of(1L));
+        // A logout that commits after the check passed but before the user lookup
+        when(tokenRevocationService.isRevoked(current)).thenAnswer(inv -> {
+            real.invalidateUser("testuser");
+            return false;
+        });
+
+        mockMvc.perform(get("/api/users/validate")
+                .header("Authorization", "Bearer racing-token"))
+                .andExpect(status().isOk());
+
+        assertTrue(real.get("racing-token").isEmpty());
+    }
+
+    @Test
+    void validateTokens_RevokedRightAfterCheck_IsNotCached() throws Exception {
+        TokenValidationCache real = realValidationCache();
+        JwtPrincipal current = principal("testuser");
+        when(jwtUtil.parse("racing-token")).thenReturn(Optional.of(current));
+        when(userService.getUserIdsByUsernames(anyCollection())).thenReturn(Map.of("testuser", 1L));
+        when(tokenRevocationService.isRevoked(current)).thenAnswer(inv -> {
+            real.invalidateUser("testuser");
+            return false;
+        });
+
+        mockMvc.perform(post("/api/users/validate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("tokens", List.of("racing-token")))))
+                .andExpect(status().isOk());
+
+        assertTrue(real.get("racing-token").isEmpty());
+    }
+
+    @Test
+    void logout_RevokesPresentedToken() throws Exception {
+        JwtPrincipal current = principal("testuser");
+        when(jwtUtil.parse("mock-token")).thenReturn(Optional.of(current));
+
+        mockMvc.perform(post("/api/users/logout")
+                .header("Authorization", "Bearer mock-token"))
+                .andExpect(status().isOk());
+
+        verify(tokenRevocationService).revokeToken(current);
+        verify(userService).updateUserActivity("testuser", false);
+    }
+
+    @Test
+    void validateToken_CachedToken_SkipsLookup() throws Exception {
+        // Arrange
+        when(tokenValidationCache.get("cached-token"))
+                .thenReturn(Optional.of(new TokenValidationCache.Entry(principal("testuser"), 1L, Long.MAX_VALUE)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/validate")
+                .header("Authorization", "Bearer cached-token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valid").value(true))
+                .andExpect(jsonPath("$.username").value("testuser"))
+                .andExpect(jsonPath("$.userId").value(1));
+
+        verify(jwtUtil, never()).parse(anyString());
+        verify(userService, never()).getUserIdByUsername(anyString());
+    }
+
+    @Test
+    void validateToken_CachedButRevokedElsewhere_ReturnsInvalid() throws Exception {
+        // A revocation synced from another replica leaves the local cache entry in place
+        JwtPrincipal revoked = principal("testuser");
+        when(tokenValidationCache.get("cached-token"))
+                .thenReturn(Optional.of(new TokenValidationCache.Entry(revoked, 1L, Long.MAX_VALUE)));
+        when(tokenRevocationService.isRevoked(revoked)).thenReturn(true);
+
+        mockMvc.perform(get("/api/users/validate")
+                .header("Authorization", "Bearer cached-token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valid").value(false));
+    }
+
+    @Test
+    void validateTokens_CachedButRevokedElsewhere_ReturnsInvalid() throws Exception {
+        JwtPrincipal revoked = principal("testuser");
+        when(tokenValidationCache.get("cached-token"))
+                .thenReturn(Optional.of(new TokenValidationCache.Entry(revoked, 1L, Long.MAX_VALUE)));
+        when(tokenRevocationService.isRevoked(revoked)).thenReturn(true);
+
+        mockMvc.perform(post("/api/users/validate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("tokens", List.of("cached-token")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].valid").value(false));
+    }
+
     @Test
     void validateToken_InvalidToken_ReturnsInvalid() throws Exception {
         // Arrange
-        when(jwtUtil.isTokenValid(anyString())).thenReturn(false);
+        when(jwtUtil.parse(anyString())).thenReturn(Optional.empty());
 
         // Act & Assert
         mockMvc.perform(get("/api/users/validate")
@@ -228,10 +499,43 @@ class UserControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void validateTokens_Batch_ResolvesUsernamesInOneLookup() throws Exception {
+        // Arrange
+        when(jwtUtil.parse("token-a")).thenReturn(Optional.of(principal("testuser")));
+        when(jwtUtil.parse("token-b")).thenReturn(Optional.empty());
+        when(jwtUtil.parse("token-c")).thenReturn(Optional.of(principal("ghost")));
+        when(userService.getUserIdsByUsernames(anyCollection())).thenReturn(Map.of("testuser", 1L));
+        Map<String, List<String>> request = Map.of("tokens", List.of("Bearer token-a", "token-b", "token-c"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/users/validate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.length()").value(3))
+                .andExpect(jsonPath("$.results[0].valid").value(true))
+                .andExpect(jsonPath("$.results[0].username").value("testuser"))
+                .andExpect(jsonPath("$.results[0].userId").value(1))
+                .andExpect(jsonPath("$.results[1].valid").value(false))
+                .andExpect(jsonPath("$.results[2].valid").value(false));
+
+        verify(userService, times(1)).getUserIdsByUsernames(anyCollection());
+        verify(userService, never()).getUserIdByUsername(anyString());
+    }
+
+    @Test
+    void validateTokens_MissingTokens_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/users/validate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void validateToken_ExpiredToken_ReturnsInvalid() throws Exception {
         // Arrange
-        when(jwtUtil.isTokenValid(anyString())).thenReturn(false);
+        when(jwtUtil.parse(anyString())).thenReturn(Optional.empty());
 
         // Act & Assert
         mockMvc.perform(get("/api/users/validate")
@@ -0,0 +1,148 @@
+package com.chat.userservice.logging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogWriterTest {
+
+    @TempDir
+    Path logDir;
+
+    private AccessLogWriter writer;
+
+    private AccessLogWriter newWriter() {
+        AccessLogWriter w = new AccessLogWriter(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(w, "logDir", logDir.toString());
+        return w;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void records_AreWrittenAsJsonLines() throws Exception {
+        writer = newWriter();
+        writer.start();
+
+        writer.append(new AccessLogRecord(0L, "abc\"123", "GET", "/api/users/validate", 200, 12));
+        writer.append(new AccessLogRecord(1000L, "def", "POST", "/api/users/login", 400, 3));
+        writer.stop();
+
+        List<String> lines = Files.readAllLines(logDir.resolve("app.log"), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        JsonNode first = new ObjectMapper().readTree(lines.get(0));
+        assertEquals("1970-01-01T00:00:00Z", first.get("timestamp").asText());
+        assertEquals("abc\"123", first.get("traceId").asText());
+        assertEquals("/api/users/validate", first.get("path").asText());
+        assertEquals(200, first.get("status").asInt());
+        assertEquals(12, first.get("durationMs").asInt());
+        assertEquals("user-service", first.get("service").asText());
+        assertEquals("request_completed", first.get("message").asText());
+        assertEquals(2, writer.writtenCount());
+    }
+
+    @Test
+    void sizeLimit_RotatesAndPrunesHistory() throws Exception {
+        writer = newWriter();
+        ReflectionTestUtils.setField(writer, "maxFileSizeMb", 0L);
+        ReflectionTestUtils.setField(writer, "maxHistory", 2);
+        ReflectionTestUtils.setField(writer, "batchSize", 1);
+        writer.start();
+
+        for (int i = 0; i < 5; i++) {
+            writer.append(new AccessLogRecord(i, "t" + i, "GET", "/health", 200, 1));
+            Thread.sleep(150);
+        }
+        writer.stop();
+
+        File[] rotated = logDir.toFile().listFiles((dir, name) -> name.startsWith("app.log."));
+        assertNotNull(rotated);
+        assertEquals(2, rotated.length);
+    }
+
+    @Test
+    void fullBuffer_DropsAndCounts() {
+        writer = newWriter();
+        ReflectionTestUtils.setField(writer, "bufferSize", 4);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 60_000L);
+        writer.start();
+        // Let the writer thread park on an empty buffer so nothing is drained during the burst
+        sleepQuietly(200);
+
+        for (int i = 0; i < 10; i++) {
+            writer.append(new AccessLogRecord(i, "t", "GET", "/health", 200, 1));
+        }
+
+        assertEquals(6, writer.droppedCount());
+    }
+
+    @Test
+    void unwritableFile_CountsDropsAndRecovers() throws Exception {
+        // A regular file where the log directory should be makes every open fail
+        Path blocked = logDir.resolve("blocked");
+        Files.writeString(blocked, "");
+        writer = new AccessLogWriter(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writer, "logDir", blocked.toString());
+        ReflectionTestUtils.setField(writer, "bufferSize", 4);
+        writer.start();
+        sleepQuietly(200);
+
+        for (int i = 0; i < 10; i++) {
+            writer.append(new AccessLogRecord(i, "t", "GET", "/health", 200, 1));
+        }
+        assertEquals(6, writer.droppedCount());
+
+        Files.delete(blocked);
+        Files.createDirectory(blocked);
+        for (int i = 0; i < 50 && writer.writtenCount() < 4; i++) {
+            sleepQuietly(100);
+        }
+        writer.stop();
+
+        assertEquals(4, writer.writtenCount());
+        assertEquals(4, Files.readAllLines(blocked.resolve("app.log"), StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    void ringBuffer_PreservesOrderAcrossWraparound() {
+        RingBuffer<Integer> ring = new RingBuffer<>(4);
+        List<Integer> out = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(ring.offer(round * 4 + i));
+            }
+            assertFalse(ring.offer(-1));
+            ring.drain(out::add, 10);
+        }
+        assertEquals(12, out.size());
+        for (int i = 0; i < 12; i++) {
+            assertEquals(i, out.get(i));
+        }
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.chat.userservice.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyProberTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private SimpleMeterRegistry registry;
+    private DependencyProber prober;
+
+    private static DependencyProbe probe(String name, ThrowingCheck check) {
+        return new DependencyProbe() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public void check(Duration timeout) throws Exception {
+                check.run();
+            }
+        };
+    }
+
+    private interface ThrowingCheck {
+        void run() throws Exception;
+    }
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        prober = new DependencyProber();
+        ReflectionTestUtils.setField(prober, "meterRegistry", registry);
+        ReflectionTestUtils.setField(prober, "timeoutMs", 200L);
+        ReflectionTestUtils.setField(prober, "probes", List.of(
+            probe("ok", () -> { }),
+            probe("broken", () -> { throw new IllegalStateException("refused"); }),
+            probe("hung", release::await)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        prober.shutdown();
+    }
+
+    @Test
+    void firstRoundRunsAtStartupAndIsCached() {
+        prober.init();
+
+        assertEquals(DependencyProber.Status.UP, prober.result("ok").status());
+        assertEquals(DependencyProber.Status.DOWN, prober.result("broken").status());
+        assertEquals("IllegalStateException: refused", prober.result("broken").error());
+        assertEquals("timed out after 200ms", prober.result("hung").error());
+        assertFalse(prober.allUp());
+        assertEquals(1.0, registry.get("dependency_up").tag("dependency", "ok").gauge().value());
+        assertEquals(0.0, registry.get("dependency_up").tag("dependency", "hung").gauge().value());
+    }
+
+    @Test
+    void hungProbeIsNotStartedAgain() {
+        prober.init();
+        prober.probeAll();
+
+        assertEquals("previous probe still running", prober.result("hung").error());
+        assertEquals(2, registry.get("dependency_probe_duration_seconds").tag("dependency", "ok").timer().count());
+        assertEquals(0, registry.find("dependency_probe_duration_seconds").tag("dependency", "hung").timers().size());
+    }
+
+    @Test
+    void resultGoesStaleWhenProbingStops() throws Exception {
+        ReflectionTestUtils.setField(prober, "intervalMs", 1L);
+        ReflectionTestUtils.setField(prober, "probes", List.of(probe("ok", () -> { })));
+        prober.init();
+
+        Thread.sleep(300);
+
+        assertEquals(DependencyProber.Status.UNKNOWN, prober.result("ok").status());
+        assertEquals("stale", prober.result("ok").error());
+    }
+}
@@ -0,0 +1,146 @@
+package com.chat.userservice.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsServiceTest {
+
+    private SimpleMeterRegistry registry;
+    private MetricsService metricsService;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metricsService = new MetricsService(registry);
+        metricsService.initializeMetrics();
+    }
+
+    @Test
+    void concurrentRecording_CountsEveryRequest() throws Exception {
+        int threads = 16;
+        int perThread = 5_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    metricsService.recordRequest("GET", "/api/users/validate", i % 50, i % 100 == 0 ? 500 : 200);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        Map<String, Object> snapshot = metricsService.snapshot("user-service");
+        long expected = (long) threads * perThread;
+        assertEquals(expected, snapshot.get("requestsTotal"));
+        assertEquals(expected / 100, snapshot.get("errorsTotal"));
+        assertEquals(expected, ((Map<?, ?>) snapshot.get("requestsByRoute")).get("GET /api/users/validate"));
+        assertEquals(expected, (long) registry.get("http_requests_total")
+                .tag("method", "GET").tag("route", "/api/users/validate").counter().count());
+        assertEquals(expected, registry.get("http_request_duration_seconds")
+                .tag("route", "/api/users/validate").timer().count());
+
+        Map<?, ?> latency = (Map<?, ?>) snapshot.get("latency");
+        assertEquals(expected, latency.get("count"));
+        assertEquals(49L, latency.get("max"));
+        Map<?, ?> routeLatency = (Map<?, ?>) ((Map<?, ?>) snapshot.get("latencyByRoute")).get("GET /api/users/validate");
+        assertEquals(expected, ((Map<?, ?>) routeLatency.get("15m")).get("count"));
+    }
+
+    @Test
+    void errorCounter_RegisteredOnlyAfterFirstError() {
+        metricsService.recordRequest("GET", "/health", 1, 200);
+        assertNull(registry.find("service_errors_total").tag("route", "/health").counter());
+
+        metricsService.recordRequest("GET", "/health", 1, 404);
+        assertEquals(1.0, registry.get("service_errors_total").tag("route", "/health").counter().count());
+    }
+
+    @Test
+    void routeMeters_CarryMethodAndRouteTags() {
+        metricsService.recordRequest("POST", "/api/users/login", 5, 200);
+
+        Map<String, Object> snapshot = metricsService.snapshot("user-service");
+        assertEquals(1L, ((Map<?, ?>) snapshot.get("business")).get("userLogins"));
+        assertNotNull(registry.find("http_requests_total").tag("method", "POST").tag("route", "/api/users/login").counter());
+        // No route-less global series next to the per-route ones
+        assertEquals(1, registry.find("http_requests_total").counters().size());
+    }
+
+    @Test
+    void snapshot_IsSharedUntilItExpires() throws Exception {
+        metricsService.recordRequest("GET", "/api/users", 1, 200);
+        Map<String, Object> first = metricsService.snapshot("user-service");
+        byte[] json = metricsService.snapshotJson("user-service");
+
+        metricsService.recordRequest("GET", "/api/users", 1, 200);
+        assertSame(first, metricsService.snapshot("user-service"));
+        assertSame(json, metricsService.snapshotJson("user-service"));
+        assertEquals(1L, first.get("requestsTotal"));
+        assertThrows(UnsupportedOperationException.class, () -> first.put("requestsTotal", 0L));
+        assertThrows(UnsupportedOperationException.class, () -> ((Map<String, Object>) first.get("resources")).clear());
+
+        ReflectionTestUtils.setField(metricsService, "snapshotMaxAgeMs", 0L);
+        Thread.sleep(2);
+        Map<String, Object> rebuilt = metricsService.snapshot("user-service");
+        assertNotSame(first, rebuilt);
+        assertEquals(2L, rebuilt.get("requestsTotal"));
+    }
+
+    @Test
+    void routesBeyondTheCap_ShareTheOverflowBucket() {
+        ReflectionTestUtils.setField(metricsService, "maxRoutes", 3);
+        for (int i = 0; i < 10; i++) {
+            metricsService.recordRequest("GET", "/route/" + i, 1, 200);
+        }
+        metricsService.recordRequest("BREW", "/route/0", 1, 200);
+
+        assertEquals(5, metricsService.routeCount());
+        assertEquals(7.0, registry.get("http_requests_total")
+            .tag("method", "GET").tag("route", MetricsService.OVERFLOW_ROUTE).counter().count());
+        assertEquals(1.0, registry.get("http_requests_total")
+            .tag("method", "OTHER").tag("route", MetricsService.OVERFLOW_ROUTE).counter().count());
+    }
+
+    @Test
+    void millionsOfDistinctPaths_KeepMetersAndHeapFlat() {
+        // Even if a raw per-user path slipped through, the cap bounds what is retained
+        for (int i = 0; i < 100_000; i++) {
+            metricsService.recordRequest("DELETE", "/api/users/user_" + i, 1, 200);
+        }
+        int meters = registry.getMeters().size();
+        long heapBefore = usedHeapAfterGc();
+
+        for (int i = 100_000; i < 2_100_000; i++) {
+            metricsService.recordRequest("DELETE", "/api/users/user_" + i, 1, 200);
+        }
+
+        assertEquals(meters, registry.getMeters().size());
+        assertTrue(metricsService.routeCount() <= 201, "routes: " + metricsService.routeCount());
+        long growth = usedHeapAfterGc() - heapBefore;
+        assertTrue(growth < 32L * 1024 * 1024, "heap grew by " + growth + " bytes");
+        assertEquals(2_100_000L, metricsService.snapshot("user-service").get("requestsTotal"));
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,84 @@
+package com.chat.userservice.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private QueryMetrics queryMetrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        queryMetrics = new QueryMetrics(registry);
+    }
+
+    private void execute(String sql, long elapsedMs) {
+        ExecutionInfo info = new ExecutionInfo();
+        info.setElapsedTime(elapsedMs);
+        info.setSuccess(true);
+        queryMetrics.afterQuery(info, List.of(new QueryInfo(sql)));
+    }
+
+    @Test
+    void normalize_CollapsesLiteralsAndInLists() {
+        assertEquals("select u.id from users u where u.username in (?) and u.active=?",
+            QueryMetrics.normalize("select u.id from users u\n  where u.username in (?, ?,?) and u.active=1"));
+        assertEquals("select * from users where email=? and t1_0.id>?",
+            QueryMetrics.normalize("select * from users where email='a''b@x.com' and t1_0.id>42"));
+    }
+
+    @Test
+    void sameShapeSharesOneTimer() {
+        execute("select u.id from users u where u.username in (?,?)", 3);
+        execute("select u.id from users u where u.username in (?,?,?,?)", 5);
+        execute("delete from users where id=?", 1);
+
+        assertEquals(2, queryMetrics.shapeCount());
+        assertEquals(2, registry.get("db_query_duration_seconds")
+            .tag("operation", "select").tag("table", "users").timer().count());
+        assertEquals(1, registry.get("db_query_duration_seconds")
+            .tag("operation", "delete").timer().count());
+    }
+
+    @Test
+    void shapesBeyondTheCapShareTheOverflowSeries() {
+        ReflectionTestUtils.setField(queryMetrics, "maxShapes", 3);
+        for (int i = 0; i < 10; i++) {
+            execute("select c" + (char) ('a' + i) + " from users", 1);
+        }
+
+        assertEquals(3, queryMetrics.shapeCount());
+        assertEquals(7, registry.get("db_query_duration_seconds").tag("shape", "other").timer().count());
+    }
+
+    @Test
+    void repeatedSelectWithinRequest_IsReportedAsNPlusOne() {
+        queryMetrics.beginRequest();
+        for (int i = 0; i < 12; i++) {
+            execute("select p.* from profiles p where p.user_id=" + i, 1);
+        }
+        execute("select u.* from users u", 1);
+        queryMetrics.endRequest("GET", "/api/users/dashboard");
+
+        assertEquals(1, registry.get("db_n_plus_one_total")
+            .tag("route", "/api/users/dashboard").tag("table", "profiles").counter().count());
+        assertTrue(registry.find("db_n_plus_one_total").tag("table", "users").counters().isEmpty());
+
+        // Outside a request nothing is counted
+        for (int i = 0; i < 12; i++) {
+            execute("select p.* from profiles p where p.user_id=" + i, 1);
+        }
+        queryMetrics.endRequest("GET", "/api/users/dashboard");
+        assertEquals(1, registry.get("db_n_plus_one_total").counter().count());
+    }
+}
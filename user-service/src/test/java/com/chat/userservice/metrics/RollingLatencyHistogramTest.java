@@ -0,0 +1,61 @@
+package com.chat.userservice.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingLatencyHistogramTest {
+
+    private static final long SLOT_MS = 10_000;
+    private static final long MINUTE = 60_000;
+
+    @Test
+    void percentiles_ComputedWithoutSorting() {
+        RollingLatencyHistogram histogram = new RollingLatencyHistogram(SLOT_MS, 15 * MINUTE, 0);
+        for (long v = 1; v <= 1000; v++) {
+            histogram.record(v);
+        }
+
+        Map<String, Object> summary = RollingLatencyHistogram.summarize(histogram.window(MINUTE, 1_000));
+
+        assertEquals(1000L, summary.get("count"));
+        assertEquals(1L, summary.get("min"));
+        assertEquals(500.0, ((Long) summary.get("p50")).doubleValue(), 5.0);
+        assertEquals(990.0, ((Long) summary.get("p99")).doubleValue(), 10.0);
+        assertEquals(999.0, ((Long) summary.get("p999")).doubleValue(), 10.0);
+    }
+
+    @Test
+    void oldSlots_FallOutOfShortWindows() {
+        RollingLatencyHistogram histogram = new RollingLatencyHistogram(SLOT_MS, 15 * MINUTE, 0);
+        histogram.record(100);
+        histogram.roll(5_000);
+
+        long threeMinutesLater = 3 * MINUTE;
+        histogram.record(7);
+
+        Histogram oneMinute = histogram.window(MINUTE, threeMinutesLater);
+        Histogram fiveMinutes = histogram.window(5 * MINUTE, threeMinutesLater);
+        Histogram afterFifteen = histogram.window(15 * MINUTE, 20 * MINUTE);
+
+        assertEquals(1, oneMinute.getTotalCount());
+        assertEquals(7, oneMinute.getMaxValue());
+        assertEquals(2, fiveMinutes.getTotalCount());
+        assertEquals(0, afterFifteen.getTotalCount());
+    }
+
+    @Test
+    void outOfRangeValues_AreClamped() {
+        RollingLatencyHistogram histogram = new RollingLatencyHistogram(SLOT_MS, 15 * MINUTE, 0);
+        histogram.record(-5);
+        histogram.record(RollingLatencyHistogram.HIGHEST_TRACKABLE_MS * 10);
+
+        Histogram window = histogram.window(MINUTE, 0);
+
+        assertEquals(2, window.getTotalCount());
+        assertEquals(0, window.getMinValue());
+    }
+}
@@ -0,0 +1,166 @@
+package com.chat.userservice.repository;
+
+import com.chat.userservice.entity.User;
+import com.chat.userservice.service.PresenceWriteBehind;
+import com.chat.userservice.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "presence.write-behind.flush-interval-ms=3600000")
+@ActiveProfiles("test")
+class UserCacheTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PresenceWriteBehind presenceWriteBehind;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        userService.registerUser("frank", "frank@example.com", "secret");
+        statistics.clear();
+    }
+
+    @Test
+    void repeatedLookupsAreServedFromTheCache() {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(userService.getUserByUsername("frank").isPresent());
+            assertTrue(userService.getUserIdByUsername("frank").isPresent());
+        }
+
+        long hits = statistics.getSecondLevelCacheHitCount();
+        long misses = statistics.getSecondLevelCacheMissCount();
+        assertTrue(hits / (double) (hits + misses) >= 0.95, "hit ratio too low: " + hits + "/" + (hits + misses));
+        assertTrue(statistics.getNaturalIdCacheHitCount() >= 39);
+        assertTrue(statistics.getPrepareStatementCount() <= 1, "lookups went to the database");
+    }
+
+    @Test
+    void passwordUpdateIsVisibleThroughTheCache() {
+        userService.getUserByUsername("frank");
+
+        assertTrue(userService.updatePassword("frank", "changed"));
+
+        String cachedHash = userService.getUserByUsername("frank").orElseThrow().getPassword();
+        assertEquals(userRepository.findCredentialsByUsername("frank").orElseThrow().password(), cachedHash);
+    }
+
+    @Test
+    void jdbcPresenceFlushEvictsTheCachedEntity() {
+        assertFalse(userService.getUserByUsername("frank").orElseThrow().isActive());
+
+        presenceWriteBehind.record("frank", true);
+        presenceWriteBehind.flush();
+
+        assertTrue(userService.getUserByUsername("frank").orElseThrow().isActive());
+    }
+
+    @Test
+    void deletedUserIsNotServedFromTheCache() {
+        userService.getUserByUsername("frank");
+
+        assertTrue(userService.deleteUser("frank"));
+
+        assertTrue(userService.getUserByUsername("frank").isEmpty());
+        assertTrue(userService.getUserIdByUsername("frank").isEmpty());
+    }
+
+    @Test
+    void writesToOtherUsersKeepTheCacheWarm() {
+        for (int i = 0; i < 10; i++) {
+            userService.registerUser("churn" + i, "churn" + i + "@example.com", "secret");
+        }
+        userService.getUserByUsername("frank");
+        statistics.clear();
+
+        for (int i = 0; i < 10; i++) {
+            userService.updatePassword("churn" + i, "changed");
+            assertTrue(userService.getUserIdByUsername("frank").isPresent());
+        }
+
+        assertEquals(0, statistics.getSecondLevelCacheMissCount());
+        assertEquals(0, statistics.getNaturalIdCacheMissCount());
+        assertEquals(10, statistics.getNaturalIdCacheHitCount(), "writes should not consult the username index");
+    }
+
+    @Test
+    void deletesOfOtherUsersKeepTheEntityCacheWarm() {
+        for (int i = 0; i < 10; i++) {
+            userService.registerUser("churn" + i, "churn" + i + "@example.com", "secret");
+        }
+        userService.getUserByUsername("frank");
+        statistics.clear();
+
+        for (int i = 0; i < 10; i++) {
+            userService.deleteUser("churn" + i);
+            assertTrue(userService.getUserIdByUsername("frank").isPresent());
+        }
+
+        // Each delete drops the username index, so only frank's name is resolved again
+        assertEquals(0, statistics.getSecondLevelCacheMissCount());
+    }
+
+    @Test
+    void coldCacheWritesNeedNoIdLookup() {
+        Long id = userService.getUserByUsername("frank").orElseThrow().getId();
+        // Only the entity stays cached: the username index can no longer answer for frank
+        sessionFactory.getCache().evictNaturalIdData(User.class);
+
+        double before = userSelects();
+        assertTrue(userService.updatePassword("frank", "changed"));
+        assertEquals(before, userSelects(), "an update should be a single statement");
+
+        assertTrue(userService.deleteUser("frank"));
+        assertEquals(before, userSelects(), "a delete should be a single statement");
+        assertTrue(userRepository.findById(id).isEmpty(), "the entity entry should be gone despite the cold index");
+    }
+
+    private double userSelects() {
+        return meterRegistry.find("db_query_duration_seconds").tag("operation", "select").tag("table", "users")
+            .timers().stream().mapToDouble(timer -> timer.count()).sum();
+    }
+
+    @Test
+    void reRegisteredUsernameResolvesToTheNewRow() {
+        Long oldId = userService.getUserIdByUsername("frank").orElseThrow();
+
+        assertTrue(userService.deleteUser("frank"));
+        Long newId = userService.registerUser("frank", "frank@example.com", "secret").getId();
+
+        assertNotEquals(oldId, newId);
+        assertEquals(newId, userService.getUserIdByUsername("frank").orElseThrow());
+    }
+
+    @Test
+    void cacheStatisticsAreExportedToMicrometer() {
+        userService.getUserByUsername("frank");
+
+        assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests").tag("region", "users").meter());
+    }
+}
@@ -0,0 +1,68 @@
+package com.chat.userservice.repository;
+
+import com.chat.userservice.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long aliceId;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        aliceId = userRepository.save(new User("alice", "alice@example.com", "hash")).getId();
+    }
+
+    @Test
+    void projectionsReturnOnlyWhatCallersNeed() {
+        assertEquals(aliceId, userRepository.findIdByUsername("alice").orElseThrow());
+        assertEquals(new UserCredentials(aliceId, "alice", "hash"),
+            userRepository.findCredentialsByUsername("alice").orElseThrow());
+        assertTrue(userRepository.existsByUsername("alice"));
+        assertTrue(userRepository.existsByEmail("alice@example.com"));
+        assertFalse(userRepository.existsByUsername("bob"));
+    }
+
+    @Test
+    void updatePasswordByUsername() {
+        assertEquals(1, userRepository.updatePasswordByUsername("alice", "newhash"));
+        assertEquals(0, userRepository.updatePasswordByUsername("bob", "newhash"));
+
+        assertEquals("newhash", userRepository.findByUsername("alice").orElseThrow().getPassword());
+    }
+
+    @Test
+    void flipActivityMatchesOnlyWhenTheFlagChanges() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertEquals(1, userRepository.flipActivityByUsername("alice", true, now));
+        assertEquals(0, userRepository.flipActivityByUsername("alice", true, now));
+        assertTrue(userRepository.findByUsername("alice").orElseThrow().isActive());
+    }
+
+    @Test
+    void deleteReturnsTheActiveFlagOfTheRemovedRow() {
+        userRepository.flipActivityByUsername("alice", true, LocalDateTime.now());
+
+        assertEquals(Optional.of(true), userRepository.deleteReturningActive("alice"));
+        assertEquals(Optional.empty(), userRepository.deleteReturningActive("alice"));
+        assertFalse(userRepository.existsByUsername("alice"));
+    }
+}
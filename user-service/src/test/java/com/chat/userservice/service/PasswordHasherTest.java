@@ -0,0 +1,96 @@
+package com.chat.userservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        hasher.stop();
+    }
+
+    private PasswordHasher newHasher(PasswordEncoder encoder, int threads, int queueCapacity) {
+        PasswordHasher h = new PasswordHasher(encoder, registry);
+        ReflectionTestUtils.setField(h, "threads", threads);
+        ReflectionTestUtils.setField(h, "queueCapacity", queueCapacity);
+        h.start();
+        return h;
+    }
+
+    @Test
+    void encodeAndMatches_RunOnPoolAndRecordTimings() {
+        hasher = newHasher(new BCryptPasswordEncoder(4), 2, 4);
+
+        String hash = hasher.encode("secret");
+
+        assertTrue(hasher.matches("secret", hash));
+        assertFalse(hasher.matches("wrong", hash));
+        assertEquals(1, registry.get("password_hash_duration_seconds").tag("operation", "encode").timer().count());
+        assertEquals(2, registry.get("password_hash_queue_wait_seconds").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void encodeAll_KeepsInputOrder() {
+        hasher = newHasher(new BCryptPasswordEncoder(4), 2, 1);
+
+        List<String> hashes = hasher.encodeAll(List.of("a", "b", "c", "d", "e"));
+
+        assertEquals(5, hashes.size());
+        assertTrue(hasher.matches("a", hashes.get(0)));
+        assertTrue(hasher.matches("e", hashes.get(4)));
+    }
+
+    @Test
+    void saturatedPool_RejectsImmediately() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence raw) {
+                busy.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence raw, String encoded) {
+                return true;
+            }
+        };
+        hasher = newHasher(blocking, 1, 1);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        callers.submit(() -> hasher.encode("a"));
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> hasher.encode("b"));
+        // Give the second call time to land in the single queue slot
+        Thread.sleep(200);
+
+        assertThrows(PasswordHashingRejectedException.class, () -> hasher.encode("c"));
+        assertEquals(1.0, registry.get("password_hash_rejected_total").counter().count());
+
+        release.countDown();
+        callers.shutdown();
+        assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
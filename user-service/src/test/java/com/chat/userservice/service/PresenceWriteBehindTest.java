@@ -0,0 +1,102 @@
+package com.chat.userservice.service;
+
+import com.chat.userservice.entity.User;
+import com.chat.userservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "presence.write-behind.flush-interval-ms=3600000")
+@ActiveProfiles("test")
+class PresenceWriteBehindTest {
+
+    @Autowired
+    private PresenceWriteBehind presenceWriteBehind;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @SpyBean
+    private UserCounters userCounters;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        presenceWriteBehind.flush();
+        reset(userCounters);
+    }
+
+    @Test
+    void disabledBufferStartsNoFlushThread() {
+        PresenceWriteBehind disabled = new PresenceWriteBehind();
+        ReflectionTestUtils.setField(disabled, "enabled", false);
+
+        disabled.start();
+
+        assertNull(ReflectionTestUtils.getField(disabled, "flusher"));
+        disabled.shutdown();
+    }
+
+    @Test
+    void updatesAreCoalescedPerUserAndFlushedInBatch() {
+        userRepository.save(new User("alice", "alice@example.com", "x"));
+        userRepository.save(new User("bob", "bob@example.com", "x"));
+
+        presenceWriteBehind.record("alice", true);
+        presenceWriteBehind.record("alice", false);
+        presenceWriteBehind.record("alice", true);
+        presenceWriteBehind.record("bob", false);
+        assertEquals(2, presenceWriteBehind.pendingCount());
+
+        presenceWriteBehind.flush();
+
+        assertEquals(0, presenceWriteBehind.pendingCount());
+        User alice = userRepository.findByUsername("alice").orElseThrow();
+        User bob = userRepository.findByUsername("bob").orElseThrow();
+        assertTrue(alice.isActive());
+        assertNotNull(alice.getLastSeen());
+        assertFalse(bob.isActive());
+        assertNotNull(bob.getLastSeen());
+        // Only alice flipped state, so only she moves the active counter
+        verify(userCounters, times(1)).activityChanged(false, true);
+        verify(userCounters, never()).activityChanged(true, false);
+    }
+
+    @Test
+    void overflowFlushRunsOffTheCallerThread() throws InterruptedException {
+        ReflectionTestUtils.setField(presenceWriteBehind, "maxPending", 2);
+        try {
+            // Holding the flush lock: a flush on this thread would re-enter it and drain the buffer
+            synchronized (presenceWriteBehind) {
+                presenceWriteBehind.record("alice", true);
+                presenceWriteBehind.record("bob", true);
+                assertEquals(2, presenceWriteBehind.pendingCount());
+            }
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (presenceWriteBehind.pendingCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, presenceWriteBehind.pendingCount());
+        } finally {
+            ReflectionTestUtils.setField(presenceWriteBehind, "maxPending", 10000);
+        }
+    }
+
+    @Test
+    void unknownUsers_AreIgnored() {
+        presenceWriteBehind.record("ghost", true);
+
+        presenceWriteBehind.flush();
+
+        assertEquals(0, presenceWriteBehind.pendingCount());
+        verify(userCounters, never()).activityChanged(anyBoolean(), anyBoolean());
+    }
+}
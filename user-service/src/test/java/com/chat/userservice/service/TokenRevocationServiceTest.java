@@ -0,0 +1,108 @@
+package com.chat.userservice.service;
+
+import com.chat.userservice.entity.TokenRevocation;
+import com.chat.userservice.repository.TokenRevocationRepository;
+import com.chat.userservice.util.JwtPrincipal;
+import com.chat.userservice.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "jwt.revocation.commit-grace-ms=0")
+@ActiveProfiles("test")
+class TokenRevocationServiceTest {
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private JwtPrincipal issue(String username) {
+        return jwtUtil.parse(jwtUtil.generateToken(username, 1L)).orElseThrow();
+    }
+
+    private static JwtPrincipal issuedAt(String username, long epochMillis) {
+        return new JwtPrincipal(username, null, null, new Date(epochMillis), new Date(epochMillis + 60_000));
+    }
+
+    @Test
+    void logoutRevokesOnlyThatToken() {
+        JwtPrincipal loggedOut = issue("revoke-logout");
+        JwtPrincipal otherDevice = issue("revoke-logout");
+
+        tokenRevocationService.revokeToken(loggedOut);
+
+        assertTrue(tokenRevocationService.isRevoked(loggedOut));
+        assertFalse(tokenRevocationService.isRevoked(otherDevice));
+    }
+
+    @Test
+    void userRevocationCoversEarlierTokensOnly() {
+        JwtPrincipal before = issue("revoke-user");
+
+        tokenRevocationService.revokeUser("revoke-user");
+
+        assertTrue(tokenRevocationService.isRevoked(before));
+        assertFalse(tokenRevocationService.isRevoked(issuedAt("revoke-user", System.currentTimeMillis() + 2000)));
+        assertFalse(tokenRevocationService.isRevoked(issue("revoke-someone-else")));
+    }
+
+    @Test
+    void prefixRevocationCoversMatchingUsernames() {
+        tokenRevocationService.revokeUsernamePrefix("revoke-bulk-");
+
+        assertTrue(tokenRevocationService.isRevoked(issuedAt("revoke-bulk-17", System.currentTimeMillis() - 1000)));
+        assertFalse(tokenRevocationService.isRevoked(issuedAt("revoke-other", System.currentTimeMillis() - 1000)));
+    }
+
+    @Test
+    void revocationsWrittenElsewhereApplyOnSync() {
+        JwtPrincipal token = issue("revoke-replica");
+        long now = System.currentTimeMillis();
+        // As another replica (or this one before a restart) would have written it
+        tokenRevocationRepository.save(new TokenRevocation(TokenRevocation.Kind.USER, "revoke-replica", null,
+            now / 1000, now / 1000 + 3600, now));
+        assertFalse(tokenRevocationService.isRevoked(token));
+
+        tokenRevocationService.sync();
+
+        assertTrue(tokenRevocationService.isRevoked(token));
+    }
+
+    @Test
+    void deltasPageFromVersion() {
+        long start = tokenRevocationService.deltas(0, Integer.MAX_VALUE).version();
+        tokenRevocationService.revokeUsers(List.of("revoke-delta-a", "revoke-delta-b", "revoke-delta-c"));
+
+        TokenRevocationService.Deltas first = tokenRevocationService.deltas(start, 2);
+        TokenRevocationService.Deltas rest = tokenRevocationService.deltas(first.version(), 2);
+
+        assertEquals(List.of("revoke-delta-a", "revoke-delta-b"),
+            first.revocations().stream().map(TokenRevocation::getUsername).toList());
+        assertTrue(first.hasMore());
+        assertEquals(List.of("revoke-delta-c"), rest.revocations().stream().map(TokenRevocation::getUsername).toList());
+        assertFalse(rest.hasMore());
+        assertEquals(rest.version(), tokenRevocationService.deltas(rest.version(), 2).version());
+    }
+
+    @Test
+    void pruneDropsExpiredRows() {
+        long now = System.currentTimeMillis();
+        TokenRevocation expired = tokenRevocationRepository.save(new TokenRevocation(TokenRevocation.Kind.TOKEN,
+            "revoke-expired", "AAAAAAAAAAA", now / 1000 - 120, now / 1000 - 60, now - 120_000));
+
+        tokenRevocationService.prune();
+
+        assertFalse(tokenRevocationRepository.existsById(expired.getId()));
+    }
+}
@@ -0,0 +1,158 @@
+package com.chat.userservice.service;
+
+import com.chat.userservice.util.JwtPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenValidationCacheTest {
+
+    private TokenValidationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TokenValidationCache();
+    }
+
+    private static JwtPrincipal principal(String username, Date expiration) {
+        return new JwtPrincipal(username, null, null, new Date(), expiration);
+    }
+
+    private static Date inOneHour() {
+        return new Date(System.currentTimeMillis() + 3_600_000);
+    }
+
+    @Test
+    void putThenGet_ReturnsEntry() {
+        cache.put("token-a", principal("alice", inOneHour()), 7L, cache.stamp("alice"));
+
+        Optional<TokenValidationCache.Entry> entry = cache.get("token-a");
+
+        assertTrue(entry.isPresent());
+        assertEquals("alice", entry.get().username());
+        assertEquals(7L, entry.get().userId());
+    }
+
+    @Test
+    void expiredToken_IsNotCached() {
+        cache.put("token-a", principal("alice", new Date(System.currentTimeMillis() - 1000)), 7L, cache.stamp("alice"));
+
+        assertTrue(cache.get("token-a").isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidateUser_RemovesAllTokensOfUser() {
+        cache.put("token-a", principal("alice", inOneHour()), 7L, cache.stamp("alice"));
+        cache.put("token-b", principal("alice", inOneHour()), 7L, cache.stamp("alice"));
+        cache.put("token-c", principal("bob", inOneHour()), 8L, cache.stamp("bob"));
+
+        cache.invalidateUser("alice");
+
+        assertTrue(cache.get("token-a").isEmpty());
+        assertTrue(cache.get("token-b").isEmpty());
+        assertTrue(cache.get("token-c").isPresent());
+    }
+
+    @Test
+    void maxSize_EvictsOldestEntries() {
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+
+        cache.put("token-a", principal("alice", inOneHour()), 1L, cache.stamp("alice"));
+        cache.put("token-b", principal("bob", inOneHour()), 2L, cache.stamp("bob"));
+        cache.put("token-c", principal("carol", inOneHour()), 3L, cache.stamp("carol"));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.get("token-a").isEmpty());
+        assertTrue(cache.get("token-b").isPresent());
+        assertTrue(cache.get("token-c").isPresent());
+    }
+
+    @Test
+    void maxSize_SkipsAlreadyInvalidatedEntries() {
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        cache.put("token-a", principal("alice", inOneHour()), 1L, cache.stamp("alice"));
+        cache.put("token-b", principal("bob", inOneHour()), 2L, cache.stamp("bob"));
+        cache.invalidateUser("alice");
+
+        cache.put("token-c", principal("carol", inOneHour()), 3L, cache.stamp("carol"));
+        cache.put("token-d", principal("dave", inOneHour()), 4L, cache.stamp("dave"));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.get("token-b").isEmpty());
+        assertTrue(cache.get("token-c").isPresent());
+        assertTrue(cache.get("token-d").isPresent());
+    }
+
+    @Test
+    void evictExpired_SweepsEntriesPastTheirTtl() throws InterruptedException {
+        ReflectionTestUtils.setField(cache, "ttlMs", 20L);
+        cache.put("token-a", principal("alice", inOneHour()), 1L, cache.stamp("alice"));
+        Thread.sleep(50);
+
+        cache.evictExpired();
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void disabled_NeverCaches() {
+        ReflectionTestUtils.setField(cache, "enabled", false);
+
+        cache.put("token-a", principal("alice", inOneHour()), 1L, cache.stamp("alice"));
+
+        assertTrue(cache.get("token-a").isEmpty());
+    }
+
+    @Test
+    void putWithStaleStamp_IsSkipped() {
+        long stamp = cache.stamp("alice");
+        cache.invalidateUser("alice");
+
+        cache.put("token-a", principal("alice", inOneHour()), 7L, stamp);
+
+        assertTrue(cache.get("token-a").isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidateUsernamePrefix_RemovesEntriesAndStalesStamps() {
+        long stamp = cache.stamp("load_2");
+        cache.put("token-a", principal("load_1", inOneHour()), 1L, cache.stamp("load_1"));
+        cache.put("token-c", principal("carol", inOneHour()), 3L, cache.stamp("carol"));
+
+        cache.invalidateUsernamePrefix("load_");
+        cache.put("token-b", principal("load_2", inOneHour()), 2L, stamp);
+
+        assertTrue(cache.get("token-a").isEmpty());
+        assertTrue(cache.get("token-b").isEmpty());
+        assertTrue(cache.get("token-c").isPresent());
+    }
+
+    @Test
+    void invalidateInTransaction_DropsAgainAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidateUser("alice");
+            // A lookup that read the row before the delete committed
+            cache.put("token-a", principal("alice", inOneHour()), 7L, cache.stamp("alice"));
+            assertTrue(cache.get("token-a").isPresent());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(cache.get("token-a").isEmpty());
+        long stamp = cache.stamp("alice");
+        cache.put("token-b", principal("alice", inOneHour()), 7L, stamp);
+        assertTrue(cache.get("token-b").isPresent());
+    }
+}
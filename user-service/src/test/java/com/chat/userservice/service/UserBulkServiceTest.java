@@ -0,0 +1,141 @@
+package com.chat.userservice.service;
+
+import com.chat.userservice.config.UserIdSequenceAligner;
+import com.chat.userservice.entity.User;
+import com.chat.userservice.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"bulk-import.chunk-size=100", "bulk-delete.chunk-size=100"})
+@ActiveProfiles("test")
+class UserBulkServiceTest {
+
+    private static final String HASH = new BCryptPasswordEncoder(4).encode("secret");
+
+    @Autowired
+    private UserBulkService userBulkService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCounters userCounters;
+
+    @Autowired
+    private UserIdSequenceAligner userIdSequenceAligner;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        userCounters.reconcile();
+    }
+
+    private static List<UserBulkService.NewUser> users(String prefix, int count) {
+        List<UserBulkService.NewUser> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(new UserBulkService.NewUser(prefix + i, prefix + i + "@example.com", null, HASH));
+        }
+        return users;
+    }
+
+    @Test
+    void importsInJdbcBatches() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        UserBulkService.ImportResult result = userBulkService.importUsers(users("bulk", 500));
+
+        assertEquals(500, result.created());
+        assertTrue(result.rejected().isEmpty());
+        assertEquals(500, userRepository.count());
+        assertEquals(500, userCounters.getTotal());
+        assertEquals(500, statistics.getEntityInsertCount());
+        // 500 rows at batch_size 50 plus the existence checks and sequence calls, not one statement per row
+        assertTrue(statistics.getPrepareStatementCount() < 100, "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void rawPasswordsAreHashedAndBadRowsRejected() {
+        userRepository.save(new User("taken", "taken@example.com", HASH));
+        List<UserBulkService.NewUser> users = List.of(
+            new UserBulkService.NewUser("alice", "alice@example.com", "secret", null),
+            new UserBulkService.NewUser("alice", "alice2@example.com", "secret", null),
+            new UserBulkService.NewUser("taken", "other@example.com", "secret", null),
+            new UserBulkService.NewUser("bob", "bob@example.com", null, "not-a-hash"),
+            new UserBulkService.NewUser("carol", null, "secret", null)
+        );
+
+        UserBulkService.ImportResult result = userBulkService.importUsers(users);
+
+        assertEquals(1, result.created());
+        assertEquals(4, result.rejected().size());
+        String stored = userRepository.findCredentialsByUsername("alice").orElseThrow().password();
+        assertTrue(new BCryptPasswordEncoder().matches("secret", stored));
+        assertTrue(result.rejected().stream().anyMatch(r -> r.reason().equals("Username already exists")));
+        assertTrue(result.rejected().stream().anyMatch(r -> r.reason().equals("duplicate in request")));
+    }
+
+    @Test
+    void sequenceIsMovedPastIdsAssignedBeforeIt() {
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, active) VALUES (100000, 'legacy', 'legacy@example.com', ?, false)", HASH);
+
+        userIdSequenceAligner.align();
+
+        // The pooled optimizer hands out the block ending at this value
+        long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + User.ID_SEQUENCE, Long.class);
+        assertTrue(next - (User.ID_ALLOCATION_SIZE - 1) > 100000);
+    }
+
+    @Test
+    void deletesListedUsersInChunks() {
+        userBulkService.importUsers(users("gone", 250));
+        userRepository.save(new User("kept", "kept@example.com", HASH));
+        jdbcTemplate.update("UPDATE users SET active = true WHERE username = 'gone0'");
+        userCounters.reconcile();
+        List<String> names = new ArrayList<>(IntStream.range(0, 250).mapToObj(i -> "gone" + i).toList());
+        names.add("missing");
+
+        UserBulkService.DeleteResult result = userBulkService.deleteUsers(names);
+
+        assertEquals(251, result.requested());
+        assertEquals(250, result.deleted());
+        assertEquals(1, result.active());
+        assertEquals(3, result.chunks());
+        assertEquals(1, userRepository.count());
+        assertEquals(1, userCounters.getTotal());
+        assertEquals(0, userCounters.getActive());
+    }
+
+    @Test
+    void prefixIsMatchedLiterally() {
+        userBulkService.importUsers(users("load_", 230));
+        userBulkService.importUsers(users("loadX", 5));
+
+        UserBulkService.DeleteResult result = userBulkService.deleteUsersByPrefix("load_");
+
+        assertEquals(230, result.deleted());
+        assertEquals(3, result.chunks());
+        assertEquals(5, userRepository.count());
+        assertEquals(5, userCounters.getTotal());
+    }
+}
@@ -0,0 +1,95 @@
+package com.chat.userservice.service;
+
+import com.chat.userservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCountersTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserTableVersion userTableVersion;
+
+    @InjectMocks
+    private UserCounters userCounters;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void seed_LoadsCountsOnce() {
+        when(userRepository.count()).thenReturn(100L);
+        when(userRepository.countActiveUsers()).thenReturn(40L);
+
+        userCounters.seed();
+
+        assertTrue(userCounters.isAvailable());
+        assertEquals(100L, userCounters.getTotal());
+        assertEquals(40L, userCounters.getActive());
+    }
+
+    @Test
+    void incrementalUpdates_AdjustCounts() {
+        when(userRepository.count()).thenReturn(10L);
+        when(userRepository.countActiveUsers()).thenReturn(2L);
+        userCounters.seed();
+
+        userCounters.userAdded();
+        userCounters.activityChanged(false, true);
+        userCounters.activityChanged(true, true);
+        userCounters.userRemoved(true);
+
+        assertEquals(10L, userCounters.getTotal());
+        assertEquals(2L, userCounters.getActive());
+        verify(userRepository, times(1)).count();
+    }
+
+    @Test
+    void reconcile_DriftMovesTheTableVersion() {
+        when(userRepository.count()).thenReturn(10L);
+        when(userRepository.countActiveUsers()).thenReturn(2L);
+        userCounters.seed();
+        userCounters.reconcile();
+        verify(userTableVersion, never()).changed();
+
+        // Another replica deleted an active user
+        when(userRepository.count()).thenReturn(9L);
+        when(userRepository.countActiveUsers()).thenReturn(1L);
+        userCounters.reconcile();
+
+        assertEquals(9L, userCounters.getTotal());
+        verify(userTableVersion, times(1)).changed();
+    }
+
+    @Test
+    void seedFailure_FallsBackToSql() {
+        when(userRepository.count()).thenThrow(new RuntimeException("db down"));
+
+        userCounters.seed();
+
+        assertFalse(userCounters.isAvailable());
+    }
+
+    @Test
+    void reconcile_CorrectsDrift() {
+        when(userRepository.count()).thenReturn(5L, 9L);
+        when(userRepository.countActiveUsers()).thenReturn(1L, 3L);
+        userCounters.seed();
+        userCounters.userAdded();
+
+        userCounters.reconcile();
+
+        assertEquals(9L, userCounters.getTotal());
+        assertEquals(3L, userCounters.getActive());
+    }
+}
@@ -0,0 +1,65 @@
+package com.chat.userservice.service;
+
+import com.chat.userservice.entity.User;
+import com.chat.userservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserExistenceFilterTest {
+
+    @Autowired
+    private UserExistenceFilter userExistenceFilter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        userExistenceFilter.rebuild();
+    }
+
+    @Test
+    void rebuildLoadsExistingUsers() {
+        userRepository.save(new User("carol", "carol@example.com", "x"));
+
+        userExistenceFilter.rebuild();
+
+        assertTrue(userExistenceFilter.isReady());
+        assertTrue(userExistenceFilter.mightContainUsername("carol"));
+        assertTrue(userExistenceFilter.mightContainEmail("carol@example.com"));
+        assertFalse(userExistenceFilter.mightContainUsername("carol@example.com"));
+    }
+
+    @Test
+    void registrationAddsToFilterAndDuplicatesAreStillRejected() {
+        assertFalse(userExistenceFilter.mightContainUsername("dave"));
+
+        userService.registerUser("dave", "dave@example.com", "secret");
+
+        assertTrue(userExistenceFilter.mightContainUsername("dave"));
+        RuntimeException duplicate = assertThrows(RuntimeException.class,
+            () -> userService.registerUser("dave", "other@example.com", "secret"));
+        assertEquals("Username already exists", duplicate.getMessage());
+    }
+
+    @Test
+    void deletedUsersDropOutAfterRebuild() {
+        userService.registerUser("erin", "erin@example.com", "secret");
+        userService.deleteUser("erin");
+
+        userExistenceFilter.rebuild();
+
+        assertFalse(userExistenceFilter.mightContainUsername("erin"));
+    }
+}
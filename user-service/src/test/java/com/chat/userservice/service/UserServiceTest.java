@@ -1,17 +1,19 @@
 package com.chat.userservice.service;
 
 import com.chat.userservice.entity.User;
+import com.chat.userservice.repository.UserCredentials;
 import com.chat.userservice.repository.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.util.Optional;
 import java.util.Arrays;
 
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,7 +23,25 @@ class UserServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
+
+    @Mock
+    private TokenValidationCache tokenValidationCache;
+
+    @Mock
+    private UserCounters userCounters;
+
+    @Mock
+    private PresenceWriteBehind presenceWriteBehind;
+
+    @Mock
+    private UserExistenceFilter userExistenceFilter;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private UserTableVersion userTableVersion;
 
     @InjectMocks
     private UserService userService;
@@ -33,19 +53,160 @@ class UserServiceTest {
 
     @Test
     void testUpdateUserActivity() {
-        User user = new User("test", "test@test.com", "password");
-        when(userRepository.findByUsername("test")).thenReturn(Optional.of(user));
+        when(userRepository.flipActivityByUsername(eq("test"), eq(true), any())).thenReturn(1);
+
+        userService.updateUserActivity("test", true);
+
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(userRepository, never()).touchLastSeenByUsername(anyString(), any());
+    }
+
+    @Test
+    void testUpdateUserActivityWithoutFlipOnlyTouchesLastSeen() {
+        when(userRepository.flipActivityByUsername(eq("test"), eq(true), any())).thenReturn(0);
+
+        userService.updateUserActivity("test", true);
+
+        verify(userRepository).touchLastSeenByUsername(eq("test"), any());
+        verify(userCounters, never()).activityChanged(anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void testLogoutInvalidatesCachedValidations() {
+        userService.updateUserActivity("test", false);
+
+        verify(tokenValidationCache).invalidateUser("test");
+        verify(userRepository).flipActivityByUsername(eq("test"), eq(false), any());
+    }
+
+    @Test
+    void testDeleteUserInvalidatesCachedValidations() {
+        when(userRepository.deleteReturningActive("test")).thenReturn(Optional.of(false));
+
+        assertTrue(userService.deleteUser("test"));
+
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(userCounters).userRemoved(false);
+        verify(tokenValidationCache).invalidateUser("test");
+        verify(tokenRevocationService).revokeUser("test");
+        verify(userTableVersion).changed();
+    }
+
+    @Test
+    void testDeleteActiveUserUsesReturnedFlagForCounters() {
+        when(userRepository.deleteReturningActive("test")).thenReturn(Optional.of(true));
+
+        assertTrue(userService.deleteUser("test"));
+
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(userCounters).userRemoved(true);
+    }
+
+    @Test
+    void testDeleteUnknownUserReturnsFalse() {
+        when(userRepository.deleteReturningActive("missing")).thenReturn(Optional.empty());
+
+        assertFalse(userService.deleteUser("missing"));
+
+        verify(userCounters, never()).userRemoved(anyBoolean());
+        verify(tokenRevocationService, never()).revokeUser(anyString());
+        verify(userTableVersion, never()).changed();
+    }
+
+    @Test
+    void testActivityChangeUpdatesCounters() {
+        when(userRepository.flipActivityByUsername(eq("test"), eq(true), any())).thenReturn(1);
 
         userService.updateUserActivity("test", true);
 
-        verify(userRepository).save(user);
-        assertTrue(user.isActive());
+        verify(userCounters).activityChanged(false, true);
+    }
+
+    @Test
+    void testAuthenticateUsesCredentialsProjection() {
+        UserCredentials credentials = new UserCredentials(1L, "test", "hash");
+        when(userRepository.findCredentialsByUsername("test")).thenReturn(Optional.of(credentials));
+        when(passwordHasher.matches("secret", "hash")).thenReturn(true);
+
+        assertEquals(Optional.of(credentials), userService.authenticateUser("test", "secret"));
+        verify(userRepository, never()).findByUsername(anyString());
+    }
+
+    @Test
+    void testUpdatePasswordIsSingleUpdate() {
+        when(passwordHasher.encode("newpass")).thenReturn("newhash");
+        when(userRepository.updatePasswordByUsername("test", "newhash")).thenReturn(1);
+
+        assertTrue(userService.updatePassword("test", "newpass"));
+
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(tokenValidationCache).invalidateUser("test");
+    }
+
+    @Test
+    void testTotalsServedFromCountersWithoutSql() {
+        when(userCounters.isAvailable()).thenReturn(true);
+        when(userCounters.getTotal()).thenReturn(42L);
+        when(userCounters.getActive()).thenReturn(7L);
+
+        assertEquals(42L, userService.getTotalUsers());
+        assertEquals(7L, userService.getActiveUsers());
+        verify(userRepository, never()).count();
+        verify(userRepository, never()).countActiveUsers();
+    }
+
+    @Test
+    void testActivityBufferedWhenWriteBehindEnabled() {
+        when(presenceWriteBehind.isEnabled()).thenReturn(true);
+
+        userService.updateUserActivity("test", true);
+
+        verify(presenceWriteBehind).record("test", true);
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void testRegisterSkipsLookupsWhenFilterSaysFree() {
+        when(passwordHasher.encode("secret")).thenReturn("hash");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userService.registerUser("new", "new@test.com", "secret");
+
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(userExistenceFilter).add("new", "new@test.com");
+    }
+
+    @Test
+    void testRegisterChecksDatabaseOnFilterHit() {
+        when(userExistenceFilter.mightContainUsername("test")).thenReturn(true);
+        when(userRepository.existsByUsername("test")).thenReturn(true);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+            () -> userService.registerUser("test", "other@test.com", "secret"));
+
+        assertEquals("Username already exists", e.getMessage());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void testRegisterMapsUniqueConstraintViolation() {
+        when(passwordHasher.encode("secret")).thenReturn("hash");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(userRepository.existsByUsername("new")).thenReturn(false);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+            () -> userService.registerUser("new", "taken@test.com", "secret"));
+
+        assertEquals("Email already exists", e.getMessage());
+        verify(userExistenceFilter, never()).add(anyString(), anyString());
     }
 
     @Test
     void testGetUserByUsername() {
         User user = new User("test", "test@test.com", "password");
-        when(userRepository.findByUsername("test")).thenReturn(Optional.of(user));
+        when(userRepository.findCachedByUsername("test")).thenReturn(Optional.of(user));
 
         Optional<User> result = userService.getUserByUsername("test");
 
@@ -0,0 +1,108 @@
+package com.chat.userservice.service;
+
+import com.chat.userservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "user-version.reconcile-interval-ms=3600000",
+    "user-counters.reconcile-interval-ms=3600000",
+    "presence.write-behind.flush-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class UserTableVersionTest {
+
+    @Autowired
+    private UserTableVersion userTableVersion;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCounters userCounters;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        userTableVersion.seed();
+        userCounters.reconcile();
+    }
+
+    @Test
+    void localWritesChangeTheEtag() {
+        String before = userTableVersion.etag();
+
+        userService.registerUser("alice", "alice@example.com", "password123");
+        String registered = userTableVersion.etag();
+        assertNotEquals(before, registered);
+
+        userService.deleteUser("alice");
+        assertNotEquals(registered, userTableVersion.etag());
+        assertTrue(userTableVersion.etag().startsWith("W/\""));
+    }
+
+    @Test
+    void writesFromOtherReplicasAreNoticedByReconcile() {
+        long before = userTableVersion.current();
+
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, active, created_at) "
+            + "VALUES (900001, 'elsewhere', 'elsewhere@example.com', 'x', false, CURRENT_TIMESTAMP)");
+        assertEquals(before, userTableVersion.current());
+
+        userTableVersion.reconcile();
+        assertEquals(before + 1, userTableVersion.current());
+
+        userTableVersion.reconcile();
+        assertEquals(before + 1, userTableVersion.current());
+    }
+
+    @Test
+    void deletesFromOtherReplicasAreNoticedByCounterReconciliation() {
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, active, created_at) "
+            + "VALUES (900002, 'gone', 'gone@example.com', 'x', false, CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, active, created_at) "
+            + "VALUES (900003, 'kept', 'kept@example.com', 'x', false, CURRENT_TIMESTAMP)");
+        userTableVersion.seed();
+        userCounters.reconcile();
+        long before = userTableVersion.current();
+
+        jdbcTemplate.update("DELETE FROM users WHERE id = 900002");
+        userTableVersion.reconcile();
+        assertEquals(before, userTableVersion.current());
+
+        userCounters.reconcile();
+        assertEquals(before + 1, userTableVersion.current());
+
+        userCounters.reconcile();
+        assertEquals(before + 1, userTableVersion.current());
+    }
+
+    @Test
+    void rolledBackWriteKeepsTheVersion() {
+        long before = userTableVersion.current();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userTableVersion.changed();
+            status.setRollbackOnly();
+        });
+
+        assertEquals(before, userTableVersion.current());
+    }
+}
@@ -0,0 +1,47 @@
+package com.chat.userservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringLongSetTest {
+
+    @Test
+    void containsUntilExpiry() {
+        ExpiringLongSet set = new ExpiringLongSet();
+        set.add(42L, 100);
+        set.add(0L, 200);
+
+        assertTrue(set.contains(42L, 99));
+        assertFalse(set.contains(42L, 100));
+        assertTrue(set.contains(0L, 150));
+        assertFalse(set.contains(7L, 0));
+    }
+
+    @Test
+    void readdingKeepsLaterExpiry() {
+        ExpiringLongSet set = new ExpiringLongSet();
+        set.add(1L, 500);
+        set.add(1L, 100);
+
+        assertEquals(1, set.size());
+        assertTrue(set.contains(1L, 400));
+    }
+
+    @Test
+    void growsAndPrunesExpiredKeys() {
+        ExpiringLongSet set = new ExpiringLongSet();
+        for (long key = 0; key < 10_000; key++) {
+            set.add(key * 0x9E3779B97F4A7C15L, key % 2 == 0 ? 10 : 20);
+        }
+        assertEquals(10_000, set.size());
+
+        assertEquals(5_000, set.prune(10));
+
+        assertEquals(5_000, set.size());
+        assertFalse(set.contains(0L, 5));
+        assertTrue(set.contains(0x9E3779B97F4A7C15L, 15));
+        assertEquals(5_000, set.prune(20));
+        assertEquals(0, set.size());
+    }
+}
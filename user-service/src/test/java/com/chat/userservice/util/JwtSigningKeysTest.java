@@ -0,0 +1,92 @@
+package com.chat.userservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtSigningKeysTest {
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+            + Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(der)
+            + "\n-----END " + type + "-----\n";
+    }
+
+    private static KeyPair keyPair(String algorithm) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        if (algorithm.equals("EC")) {
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+        } else {
+            generator.initialize(2048);
+        }
+        return generator.generateKeyPair();
+    }
+
+    @Test
+    void thumbprint_MatchesRfc7638Example() throws Exception {
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        PublicKey key = KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+            new BigInteger(1, decoder.decode("0vx7agoebGcQSuuPiLJXZptN9nndrQmbXEps2aiAFbWhM78LhWx4cbbfAAtVT86zwu1RK7aPFFxuhDR1L6tSoc_BJECPebWKRXjBZCiFV4n3oknjhMstn64tZ_2W-5JsGY4Hc5n9yBXArwl93lqt7_RN5w6Cf0h4QyQ5v-65YGjQR0_FDW2QvzqY368QQMicAtaSqzs8KJZgnYb9c7d0zgdAZHzu6qMQvRL5hajrn1n91CbOpbISD08qNLyrdkt-bFTWhAI4vMQFh6WeZu0fM4lFd2NcRwr3XPksINHaQ-G_xBniIqbw0Ls1jF44-csFCur-kEgU8awapJzKnqDKgw")),
+            new BigInteger(1, decoder.decode("AQAB"))));
+
+        assertEquals("NzbLsXh8uDCcd-6MNwXF4W_7noWXFZAfHkxZsRGC9Xs", JwtSigningKeys.thumbprint(key));
+    }
+
+    @Test
+    void load_PublishesCurrentKeyFirstThenPreviousKeys() throws Exception {
+        KeyPair current = keyPair("RSA");
+        KeyPair retired = keyPair("RSA");
+        // Env vars usually carry PEM with escaped newlines
+        String privatePem = pem("PRIVATE KEY", current.getPrivate().getEncoded()).replace("\n", "\\n");
+
+        JwtSigningKeys keys = JwtSigningKeys.load(JwtSigningKeys.Algorithm.RS256, privatePem,
+            pem("PUBLIC KEY", current.getPublic().getEncoded()), "", pem("PUBLIC KEY", retired.getPublic().getEncoded()));
+
+        List<Map<String, Object>> jwks = keys.jwks();
+        assertEquals(2, jwks.size());
+        assertEquals(keys.signingKeyId(), jwks.get(0).get("kid"));
+        assertEquals(JwtSigningKeys.thumbprint(current.getPublic()), keys.signingKeyId());
+        assertEquals("RSA", jwks.get(0).get("kty"));
+        assertEquals("RS256", jwks.get(0).get("alg"));
+        assertEquals("AQAB", jwks.get(0).get("e"));
+        assertEquals(retired.getPublic(), keys.verificationKey(JwtSigningKeys.thumbprint(retired.getPublic())));
+        assertNull(keys.verificationKey("unknown"));
+    }
+
+    @Test
+    void generate_Es256UsesConfiguredKeyIdAndFixedWidthCoordinates() {
+        JwtSigningKeys keys = JwtSigningKeys.generate(JwtSigningKeys.Algorithm.ES256, "2026-10");
+
+        Map<String, Object> jwk = keys.jwks().get(0);
+        assertEquals("2026-10", keys.signingKeyId());
+        assertEquals("EC", jwk.get("kty"));
+        assertEquals("P-256", jwk.get("crv"));
+        assertEquals(32, Base64.getUrlDecoder().decode((String) jwk.get("x")).length);
+        assertEquals(32, Base64.getUrlDecoder().decode((String) jwk.get("y")).length);
+    }
+
+    @Test
+    void load_RejectsWrongPemTypeAndCurve() throws Exception {
+        KeyPair rsa = keyPair("RSA");
+        String publicPem = pem("PUBLIC KEY", rsa.getPublic().getEncoded());
+        assertThrows(IllegalStateException.class, () -> JwtSigningKeys.load(JwtSigningKeys.Algorithm.RS256,
+            pem("RSA PRIVATE KEY", rsa.getPrivate().getEncoded()), publicPem, "", ""));
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp384r1"));
+        KeyPair p384 = generator.generateKeyPair();
+        assertThrows(IllegalStateException.class, () -> JwtSigningKeys.load(JwtSigningKeys.Algorithm.ES256,
+            pem("PRIVATE KEY", p384.getPrivate().getEncoded()), pem("PUBLIC KEY", p384.getPublic().getEncoded()), "", ""));
+    }
+}
@@ -1,9 +1,21 @@
 package com.chat.userservice.util;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -11,9 +23,20 @@ import static org.junit.jupiter.api.Assertions.*;
 @ActiveProfiles("test")
 class JwtUtilTest {
 
+    private static final String SECRET = "standaloneSecretKeyForJwtSigningTests0123456789";
+
     @Autowired
     private JwtUtil jwtUtil;
 
+    private static JwtUtil standalone(String algorithm) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "secret", SECRET);
+        ReflectionTestUtils.setField(util, "expiration", 60_000L);
+        ReflectionTestUtils.setField(util, "algorithm", algorithm);
+        util.init();
+        return util;
+    }
+
     @Test
     void generateToken_Success() {
         String username = "testuser";
@@ -60,10 +83,69 @@ class JwtUtilTest {
         assertFalse(isValid);
     }
 
+    @Test
+    void parse_ValidToken_ReturnsPrincipal() {
+        String token = jwtUtil.generateToken("testuser");
+
+        Optional<JwtPrincipal> principal = jwtUtil.parse(token);
+
+        assertTrue(principal.isPresent());
+        assertEquals("testuser", principal.get().username());
+        assertNotNull(principal.get().issuedAt());
+        assertTrue(principal.get().expiration().after(principal.get().issuedAt()));
+    }
+
+    @Test
+    void parse_TamperedToken_ReturnsEmpty() {
+        String token = jwtUtil.generateToken("testuser");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertTrue(jwtUtil.parse(tampered).isEmpty());
+        assertTrue(jwtUtil.parse(null).isEmpty());
+    }
+
     @Test
     void isTokenValid_EmptyToken() {
         boolean isValid = jwtUtil.isTokenValid("");
 
         assertFalse(isValid);
     }
+
+    @Test
+    void parse_UserIdClaim_RoundTrips() {
+        assertEquals(42L, jwtUtil.parse(jwtUtil.generateToken("testuser", 42L)).get().userId());
+        assertNull(jwtUtil.parse(jwtUtil.generateToken("testuser")).get().userId());
+        assertTrue(jwtUtil.publicJwks().isEmpty());
+    }
+
+    @Test
+    void rs256_TokenVerifiesLocallyAgainstPublishedJwk() throws Exception {
+        JwtUtil rs256 = standalone("RS256");
+        String token = rs256.generateToken("testuser", 7L);
+
+        Map<String, Object> jwk = rs256.publicJwks().get(0);
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        PublicKey publicKey = KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+            new BigInteger(1, decoder.decode((String) jwk.get("n"))),
+            new BigInteger(1, decoder.decode((String) jwk.get("e")))));
+        Jws<Claims> verified = Jwts.parserBuilder().setSigningKey(publicKey).build().parseClaimsJws(token);
+
+        assertEquals(jwk.get("kid"), verified.getHeader().getKeyId());
+        assertEquals("RS256", verified.getHeader().getAlgorithm());
+        assertEquals("testuser", verified.getBody().getSubject());
+        assertEquals(7L, rs256.parse(token).get().userId());
+    }
+
+    @Test
+    void asymmetricMode_AcceptsLegacyHmacUntilDisabledAndRejectsUnknownKid() {
+        JwtUtil es256 = standalone("ES256");
+        String legacy = standalone("HS256").generateToken("testuser");
+
+        assertEquals("testuser", es256.parse(legacy).get().username());
+        assertTrue(es256.parse(standalone("ES256").generateToken("testuser")).isEmpty());
+
+        ReflectionTestUtils.setField(es256, "acceptHmac", false);
+        assertTrue(es256.parse(legacy).isEmpty());
+        assertTrue(es256.parse(es256.generateToken("testuser")).isPresent());
+    }
 }
@@ -0,0 +1,62 @@
+package com.chat.userservice.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCallbacksTest {
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+
+    @Test
+    void afterCommit_OutsideTransaction_RunsImmediately() {
+        TransactionCallbacks.afterCommit(runs::incrementAndGet);
+
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void afterCommit_InTransaction_WaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        TransactionCallbacks.afterCommit(runs::incrementAndGet);
+        assertEquals(0, runs.get());
+
+        commit();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void nowAndAfterCommit_OutsideTransaction_RunsOnce() {
+        TransactionCallbacks.nowAndAfterCommit(runs::incrementAndGet);
+
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void nowAndAfterCommit_InTransaction_RunsAgainOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        TransactionCallbacks.nowAndAfterCommit(runs::incrementAndGet);
+        assertEquals(1, runs.get());
+
+        commit();
+        assertEquals(2, runs.get());
+    }
+}